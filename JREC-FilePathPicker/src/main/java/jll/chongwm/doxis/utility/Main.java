@@ -2,7 +2,7 @@ package jll.chongwm.doxis.utility;
 
 import java.awt.Dimension;
 import java.awt.Toolkit;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
@@ -13,11 +13,10 @@ import org.slf4j.LoggerFactory;
 
 import jll.chongwm.doxis.utility.service.DynamoDBService;
 import jll.chongwm.doxis.utility.ui.MainWindow;
-import jll.chongwm.doxis.utility.ui.SplashScreen;
 
 /**
- * Main entry point for the JREC-FilePathPicker application. This class initializes the application and shows the splash
- * screen before loading the main window.
+ * Main entry point for the JREC-FilePathPicker application. This class shows the main window immediately and
+ * initializes the services in the background.
  */
 public class Main
 {
@@ -29,6 +28,7 @@ public class Main
 
 	public static void main(String[] args)
 	{
+		long startTime = System.nanoTime();
 		logger.info("Starting {} v{}", APP_NAME, APP_VERSION);
 
 		// Set system look and feel
@@ -40,50 +40,20 @@ public class Main
 			logger.warn("Failed to set system look and feel", e);
 		}
 
-		// Display splash screen
-		final SplashScreen splash = new SplashScreen();
-		SwingUtilities.invokeLater(() -> { splash.setVisible(true);	});
-
-		// Initialize services in background
-		final CountDownLatch initLatch = new CountDownLatch(1);
-		Thread initThread = new Thread(() ->
+		// Open the journal and the record store in the background; the window does not wait for them
+		DynamoDBService.getInstance().initializeAsync().whenComplete((result, e) ->
 		{
-			try
-			{
-				logger.debug("Initializing DynamoDB service...");
-				DynamoDBService.getInstance().initialize();
-				logger.debug("DynamoDB service initialized successfully");
-
-				// Simulate loading time to show splash screen (remove in production)
-				Thread.sleep(1500);
-
-			} catch (Exception e)
-			{
-				logger.error("Error during application initialization", e);
-				SwingUtilities.invokeLater(() -> {JOptionPane.showMessageDialog(null, "Error initializing application: " + e.getMessage(), "Initialization Error", JOptionPane.ERROR_MESSAGE);});
-			} 
-			finally
+			if (e != null)
 			{
-				initLatch.countDown();
+				Throwable cause = e.getCause() != null ? e.getCause() : e;
+				logger.error("Error during application initialization", cause);
+				SwingUtilities.invokeLater(() -> {JOptionPane.showMessageDialog(null, "Error initializing application: " + cause.getMessage(), "Initialization Error", JOptionPane.ERROR_MESSAGE);});
 			}
 		});
-		initThread.start();
 
-		// Wait for initialization to complete
-		try
-		{
-			initLatch.await();
-		} catch (InterruptedException e)
-		{
-			logger.error("Initialization interrupted", e);
-			Thread.currentThread().interrupt();
-		}
-
-		// Close splash screen and show main window
+		// Show the main window at once; records fill in as they are loaded
 		SwingUtilities.invokeLater(() ->
 		{
-			splash.dispose();
-
 			MainWindow mainWindow = new MainWindow();
 			mainWindow.setVisible(true);
 
@@ -93,7 +63,7 @@ public class Main
 			int y = (screenSize.height - mainWindow.getHeight()) / 2;
 			mainWindow.setLocation(x, y);
 
-			logger.info("Application GUI initialized and displayed");
+			logger.info("Application GUI initialized and displayed after {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
 		});
 	}
 }
\ No newline at end of file
@@ -0,0 +1,402 @@
+package jll.chongwm.doxis.utility.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Compact map of file records by canonical path, for selection sets of millions of files.
+ * <p>
+ * Records are kept off-heap in direct buffer pages: the timestamp, the username id with the selected flag, and the
+ * UTF-8 bytes of the path. The heap only holds an open-addressing hash table with one long per slot, which packs the
+ * hash of the path with the page and offset of the record. At a load factor between 0.375 and 0.75 that is 11 to 21
+ * bytes of heap per record, plus 16 bytes and the path bytes off-heap; a ConcurrentHashMap of FileRecord objects
+ * takes about 200 bytes of heap per record for typical paths. Usernames are interned to small ints. FileRecord
+ * objects are only created when a record is read.
+ * <p>
+ * The table is split into segments with their own lock, so updates of different paths rarely contend.
+ * Records can be added and replaced; only {@link #clear(Consumer)} removes them.
+ */
+class CompactRecordStore
+{
+	private static final int SEGMENT_COUNT = 16;
+
+	// Layout of a path reference: used bit, 31 bits of hash, 12 bits of page, 20 bits of offset
+	static final int MAX_PAGES = 1 << 12;
+	static final int MAX_OFFSET = (1 << 20) - 1;
+
+	// Layout of a record in a page: timestamp, username id and selected flag, path length, path bytes
+	private static final int TIMESTAMP = 0;
+	private static final int USER_AND_SELECTED = 8;
+	private static final int PATH_LENGTH = 12;
+	private static final int PATH_BYTES = 16;
+
+	// Usernames by id and ids by username; id 0 stands for no username
+	private final List<String> usernames = new ArrayList<>();
+	private final Map<String, Integer> usernameIds = new ConcurrentHashMap<>();
+
+	private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+	/**
+	 * Creates a new, empty CompactRecordStore.
+	 */
+	CompactRecordStore()
+	{
+		usernames.add(null);
+		for (int i = 0; i < SEGMENT_COUNT; i++)
+		{
+			segments[i] = new Segment();
+		}
+	}
+
+	/**
+	 * Checks if the record of a path is selected, without creating a record object.
+	 *
+	 * @param path The canonical path
+	 * @return true if there is a record and it is selected
+	 */
+	boolean isSelected(String path)
+	{
+		Segment segment = segmentFor(path);
+		synchronized (segment)
+		{
+			long pathRef = segment.find(path, path.getBytes(StandardCharsets.UTF_8));
+			return pathRef != 0 && (segment.userAndSelected(pathRef) & 1) != 0;
+		}
+	}
+
+	/**
+	 * Replaces the record of a path atomically, like {@link Map#compute} without removal.
+	 *
+	 * @param path      The canonical path
+	 * @param remapping Gets the existing record or null, returns the record to store; runs while the path is locked
+	 * @return The record stored for the path afterwards
+	 */
+	FileRecord compute(String path, UnaryOperator<FileRecord> remapping)
+	{
+		byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+		Segment segment = segmentFor(path);
+		synchronized (segment)
+		{
+			long pathRef = segment.find(path, pathBytes);
+			FileRecord existing = pathRef == 0 ? null : segment.toRecord(pathRef, path);
+			FileRecord record = remapping.apply(existing);
+			if (record == null)
+			{
+				throw new IllegalArgumentException("Records cannot be removed individually: " + path);
+			}
+			if (record != existing)
+			{
+				if (pathRef == 0)
+				{
+					pathRef = segment.insert(path, pathBytes);
+				}
+				segment.update(pathRef, record.getTimestamp(), usernameId(record.getUsername()) << 1 | (record.isSelected() ? 1 : 0));
+			}
+			return record;
+		}
+	}
+
+	/**
+	 * Gets all records. Creates a record object and a path string for each record, so it is expensive for large stores.
+	 *
+	 * @return The records
+	 */
+	List<FileRecord> values()
+	{
+		List<FileRecord> records = new ArrayList<>();
+		forEach(records::add, false);
+		return records;
+	}
+
+	/**
+	 * Gets the paths of all selected records. Only the paths of selected records are decoded.
+	 *
+	 * @return The canonical paths
+	 */
+	List<String> selectedPaths()
+	{
+		List<String> paths = new ArrayList<>();
+		forEach(record -> paths.add(record.getFilePath()), true);
+		return paths;
+	}
+
+	/**
+	 * Removes all records.
+	 *
+	 * @param removed Receives each removed record while its segment is locked
+	 */
+	void clear(Consumer<FileRecord> removed)
+	{
+		for (Segment segment : segments)
+		{
+			synchronized (segment)
+			{
+				for (long pathRef : segment.pathRefs)
+				{
+					if (pathRef != 0)
+					{
+						removed.accept(segment.toRecord(pathRef, segment.pathOf(pathRef)));
+					}
+				}
+				segment.reset();
+			}
+		}
+	}
+
+	/**
+	 * Packs a path reference. The used bit keeps it from being 0, which marks an empty slot.
+	 *
+	 * @param hash   The spread hash of the path; only the lower 31 bits are kept
+	 * @param page   The page index, below {@link #MAX_PAGES}
+	 * @param offset The offset of the record in the page, at most {@link #MAX_OFFSET}
+	 * @return The path reference
+	 */
+	static long pathRef(int hash, int page, int offset)
+	{
+		return 1L << 63 | (long) (hash & 0x7FFFFFFF) << 32 | (long) page << 20 | offset;
+	}
+
+	static int hashOf(long pathRef)
+	{
+		return (int) (pathRef >>> 32) & 0x7FFFFFFF;
+	}
+
+	static int pageOf(long pathRef)
+	{
+		return (int) (pathRef >>> 20) & (MAX_PAGES - 1);
+	}
+
+	static int offsetOf(long pathRef)
+	{
+		return (int) pathRef & MAX_OFFSET;
+	}
+
+	private void forEach(Consumer<FileRecord> consumer, boolean selectedOnly)
+	{
+		for (Segment segment : segments)
+		{
+			synchronized (segment)
+			{
+				for (long pathRef : segment.pathRefs)
+				{
+					if (pathRef != 0 && (!selectedOnly || (segment.userAndSelected(pathRef) & 1) != 0))
+					{
+						consumer.accept(segment.toRecord(pathRef, segment.pathOf(pathRef)));
+					}
+				}
+			}
+		}
+	}
+
+	private Segment segmentFor(String path)
+	{
+		return segments[spread(path.hashCode()) >>> 28];
+	}
+
+	private static int spread(int hash)
+	{
+		return (hash ^ (hash >>> 16)) * 0x9E3779B9;
+	}
+
+	private int usernameId(String username)
+	{
+		if (username == null)
+		{
+			return 0;
+		}
+		Integer id = usernameIds.get(username);
+		if (id != null)
+		{
+			return id;
+		}
+		synchronized (usernames)
+		{
+			return usernameIds.computeIfAbsent(username, name ->
+			{
+				usernames.add(name);
+				return usernames.size() - 1;
+			});
+		}
+	}
+
+	private String username(int id)
+	{
+		synchronized (usernames)
+		{
+			return usernames.get(id);
+		}
+	}
+
+	/**
+	 * An open-addressing hash table with linear probing over path references, and the pages they point into.
+	 */
+	private class Segment
+	{
+		private static final int INITIAL_CAPACITY = 64;
+		private static final int FIRST_PAGE_SIZE = 64 * 1024;
+		private static final int MAX_PAGE_SIZE = MAX_OFFSET + 1;
+
+		long[] pathRefs;
+		int size;
+
+		// Off-heap pages holding the records, filled one after the other
+		final List<ByteBuffer> pages = new ArrayList<>();
+
+		Segment()
+		{
+			reset();
+		}
+
+		void reset()
+		{
+			pathRefs = new long[INITIAL_CAPACITY];
+			size = 0;
+			pages.clear();
+		}
+
+		/**
+		 * Finds the reference of a path.
+		 *
+		 * @return The path reference, or 0 if the path is not stored
+		 */
+		long find(String path, byte[] pathBytes)
+		{
+			int hash = spread(path.hashCode()) & 0x7FFFFFFF;
+			int mask = pathRefs.length - 1;
+			for (int slot = hash & mask; pathRefs[slot] != 0; slot = (slot + 1) & mask)
+			{
+				if (hashOf(pathRefs[slot]) == hash && pathEquals(pathRefs[slot], pathBytes))
+				{
+					return pathRefs[slot];
+				}
+			}
+			return 0;
+		}
+
+		/**
+		 * Adds a path that is not stored yet, with an empty record.
+		 *
+		 * @return The path reference
+		 */
+		long insert(String path, byte[] pathBytes)
+		{
+			if ((size + 1) * 4 > pathRefs.length * 3)
+			{
+				resize();
+			}
+			long pathRef = storeRecord(spread(path.hashCode()), pathBytes);
+			pathRefs[emptySlot(hashOf(pathRef))] = pathRef;
+			size++;
+			return pathRef;
+		}
+
+		private int emptySlot(int hash)
+		{
+			int mask = pathRefs.length - 1;
+			int slot = hash & mask;
+			while (pathRefs[slot] != 0)
+			{
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		private void resize()
+		{
+			long[] oldPathRefs = pathRefs;
+			pathRefs = new long[oldPathRefs.length * 2];
+
+			// The hash in the references is enough to place the records again, the paths are not read
+			for (long pathRef : oldPathRefs)
+			{
+				if (pathRef != 0)
+				{
+					pathRefs[emptySlot(hashOf(pathRef))] = pathRef;
+				}
+			}
+		}
+
+		/**
+		 * Appends a record for the path bytes to the current page, starting a new page if it does not fit.
+		 *
+		 * @return The path reference
+		 */
+		private long storeRecord(int hash, byte[] pathBytes)
+		{
+			int recordSize = PATH_BYTES + pathBytes.length;
+			ByteBuffer page = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+			if (page == null || page.remaining() < recordSize)
+			{
+				if (pages.size() == MAX_PAGES)
+				{
+					throw new IllegalStateException("Record store segment is full at " + MAX_PAGES + " pages");
+				}
+				// A record larger than a page gets a page of its own, at offset 0
+				int pageSize = page == null ? FIRST_PAGE_SIZE : Math.min(page.capacity() * 2, MAX_PAGE_SIZE);
+				page = ByteBuffer.allocateDirect(Math.max(pageSize, recordSize));
+				pages.add(page);
+			}
+			int offset = page.position();
+			page.putLong(offset + TIMESTAMP, 0L);
+			page.putInt(offset + USER_AND_SELECTED, 0);
+			page.putInt(offset + PATH_LENGTH, pathBytes.length);
+			page.put(offset + PATH_BYTES, pathBytes);
+			page.position(offset + recordSize);
+			return pathRef(hash, pages.size() - 1, offset);
+		}
+
+		void update(long pathRef, long timestamp, int userAndSelected)
+		{
+			ByteBuffer page = pages.get(pageOf(pathRef));
+			page.putLong(offsetOf(pathRef) + TIMESTAMP, timestamp);
+			page.putInt(offsetOf(pathRef) + USER_AND_SELECTED, userAndSelected);
+		}
+
+		int userAndSelected(long pathRef)
+		{
+			return pages.get(pageOf(pathRef)).getInt(offsetOf(pathRef) + USER_AND_SELECTED);
+		}
+
+		private boolean pathEquals(long pathRef, byte[] pathBytes)
+		{
+			ByteBuffer page = pages.get(pageOf(pathRef));
+			int offset = offsetOf(pathRef);
+			if (page.getInt(offset + PATH_LENGTH) != pathBytes.length)
+			{
+				return false;
+			}
+			offset += PATH_BYTES;
+			for (int i = 0; i < pathBytes.length; i++)
+			{
+				if (page.get(offset + i) != pathBytes[i])
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+
+		String pathOf(long pathRef)
+		{
+			ByteBuffer page = pages.get(pageOf(pathRef));
+			int offset = offsetOf(pathRef);
+			byte[] bytes = new byte[page.getInt(offset + PATH_LENGTH)];
+			page.get(offset + PATH_BYTES, bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		FileRecord toRecord(long pathRef, String path)
+		{
+			ByteBuffer page = pages.get(pageOf(pathRef));
+			int offset = offsetOf(pathRef);
+			int packed = page.getInt(offset + USER_AND_SELECTED);
+			return new FileRecord(path, page.getLong(offset + TIMESTAMP), username(packed >>> 1), (packed & 1) != 0);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,238 @@
+package jll.chongwm.doxis.utility.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The files and subdirectories of a directory, read in a single pass.
+ * <p>
+ * The directory is opened once with {@link Files#newDirectoryStream(Path)} and the attributes of each entry are
+ * read once, without following links; only symbolic links need a second read. On Windows the attributes come with
+ * the directory entries themselves, so no extra request per entry is made, which matters most for large directories
+ * on network shares.
+ */
+public class DirectoryListing
+{
+	private static final Logger logger = LoggerFactory.getLogger(DirectoryListing.class);
+
+	// The first chunk is small so the first rows show up at once; later chunks are larger to keep the UI updates cheap
+	private static final int FIRST_CHUNK_SIZE = 64;
+	private static final int CHUNK_SIZE = 2048;
+
+	// A chunk is also published if this much time has passed, so slow directories still show progress
+	private static final long CHUNK_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private final File directory;
+	private final long lastModified;
+	private final List<File> files;
+	private final List<File> subdirectories;
+	private final Set<File> symbolicLinks;
+
+	private DirectoryListing(File directory, long lastModified, List<File> files, List<File> subdirectories, Set<File> symbolicLinks)
+	{
+		this.directory = directory;
+		this.lastModified = lastModified;
+		this.files = Collections.unmodifiableList(files);
+		this.subdirectories = Collections.unmodifiableList(subdirectories);
+		this.symbolicLinks = Collections.unmodifiableSet(symbolicLinks);
+	}
+
+	/**
+	 * Lists a directory. Entries whose attributes cannot be read are listed as files, as File.isDirectory() would.
+	 *
+	 * @param directory The directory to list
+	 * @return The listing; empty if the directory cannot be read
+	 */
+	public static DirectoryListing list(File directory)
+	{
+		return stream(directory, 0, chunk -> {}, () -> false);
+	}
+
+	/**
+	 * Lists a directory, publishing the entries in chunks while they are read. The first chunk is always published,
+	 * even if the directory is empty or cannot be read, and the last chunk is marked as such.
+	 *
+	 * @param directory     The directory to list
+	 * @param generation    The listing generation passed on to the chunks
+	 * @param chunkConsumer Receives the chunks on the listing thread
+	 * @param cancelled     Checked before every entry; the listing stops without a last chunk once it returns true
+	 * @return The complete listing, or null if the listing was cancelled
+	 */
+	public static DirectoryListing stream(File directory, long generation, Consumer<FileListChunk> chunkConsumer, BooleanSupplier cancelled)
+	{
+		List<File> files = new ArrayList<>();
+		List<File> subdirectories = new ArrayList<>();
+		List<File> symbolicLinks = new ArrayList<>();
+		int publishedFiles = 0;
+		int publishedSubdirectories = 0;
+		int publishedLinks = 0;
+		boolean first = true;
+		long lastPublished = System.nanoTime();
+		long lastModified;
+
+		// Taken before reading, so a change made while listing makes the listing look outdated rather than current
+		try
+		{
+			lastModified = Files.getLastModifiedTime(directory.toPath()).toMillis();
+		} catch (IOException | SecurityException e)
+		{
+			lastModified = -1;
+		}
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath()))
+		{
+			for (Path entry : stream)
+			{
+				if (cancelled.getAsBoolean())
+				{
+					logger.debug("Cancelled listing of {} after {} entries", directory, files.size() + subdirectories.size());
+					return null;
+				}
+
+				File file = entry.toFile();
+				BasicFileAttributes attributes = readAttributes(entry, LinkOption.NOFOLLOW_LINKS);
+				boolean isDirectory;
+				if (attributes == null || attributes.isSymbolicLink())
+				{
+					symbolicLinks.add(file);
+					attributes = readAttributes(entry);
+					isDirectory = attributes != null && attributes.isDirectory();
+				} else
+				{
+					isDirectory = attributes.isDirectory();
+				}
+
+				if (isDirectory)
+				{
+					subdirectories.add(file);
+				} else
+				{
+					files.add(file);
+				}
+
+				int pending = files.size() - publishedFiles + subdirectories.size() - publishedSubdirectories;
+				long now = System.nanoTime();
+				if (pending >= (first ? FIRST_CHUNK_SIZE : CHUNK_SIZE) || now - lastPublished >= CHUNK_INTERVAL_NANOS)
+				{
+					chunkConsumer.accept(new FileListChunk(directory, generation, new ArrayList<>(files.subList(publishedFiles, files.size())),
+							new ArrayList<>(subdirectories.subList(publishedSubdirectories, subdirectories.size())),
+							new HashSet<>(symbolicLinks.subList(publishedLinks, symbolicLinks.size())), first, false));
+					publishedFiles = files.size();
+					publishedSubdirectories = subdirectories.size();
+					publishedLinks = symbolicLinks.size();
+					first = false;
+					lastPublished = now;
+				}
+			}
+		} catch (IOException | SecurityException e)
+		{
+			logger.warn("Could not list directory {}", directory, e);
+			lastModified = -1;
+		}
+
+		if (cancelled.getAsBoolean())
+		{
+			return null;
+		}
+		chunkConsumer.accept(new FileListChunk(directory, generation, new ArrayList<>(files.subList(publishedFiles, files.size())),
+				new ArrayList<>(subdirectories.subList(publishedSubdirectories, subdirectories.size())),
+				new HashSet<>(symbolicLinks.subList(publishedLinks, symbolicLinks.size())), first, true));
+
+		logger.debug("Listed {}: {} files, {} subdirectories", directory, files.size(), subdirectories.size());
+		return new DirectoryListing(directory, lastModified, files, subdirectories, new HashSet<>(symbolicLinks));
+	}
+
+	/**
+	 * Reads the attributes of a directory entry.
+	 *
+	 * @return The attributes, or null for a broken link or an entry removed while listing
+	 */
+	private static BasicFileAttributes readAttributes(Path entry, LinkOption... options)
+	{
+		try
+		{
+			return Files.readAttributes(entry, BasicFileAttributes.class, options);
+		} catch (IOException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Gets the listed directory.
+	 *
+	 * @return The directory
+	 */
+	public File getDirectory()
+	{
+		return directory;
+	}
+
+	/**
+	 * Gets the modification time of the directory when it was listed. Adding, removing or renaming entries
+	 * changes it, so a listing is still current as long as the directory has the same modification time.
+	 *
+	 * @return The modification time in epoch milliseconds, or -1 if the directory could not be read
+	 */
+	public long getLastModified()
+	{
+		return lastModified;
+	}
+
+	/**
+	 * Gets the number of entries in the listing.
+	 *
+	 * @return The number of files and subdirectories
+	 */
+	public int size()
+	{
+		return files.size() + subdirectories.size();
+	}
+
+	/**
+	 * Gets the entries that are symbolic links or whose attributes could not be read. All other entries are
+	 * children of the canonical directory and so already have their canonical path.
+	 *
+	 * @return Unmodifiable set of files and subdirectories
+	 */
+	public Set<File> getSymbolicLinks()
+	{
+		return symbolicLinks;
+	}
+
+	/**
+	 * Gets the files (non-directories) in the directory.
+	 *
+	 * @return Unmodifiable list of files
+	 */
+	public List<File> getFiles()
+	{
+		return files;
+	}
+
+	/**
+	 * Gets the subdirectories of the directory.
+	 *
+	 * @return Unmodifiable list of subdirectories
+	 */
+	public List<File> getSubdirectories()
+	{
+		return subdirectories;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,350 @@
+package jll.chongwm.doxis.utility.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LRU cache of directory listings, bounded by the number of directories and the total number of entries.
+ * <p>
+ * The directories navigated to most recently are registered with a {@link WatchService} and dropped from the cache
+ * as soon as an entry is created or deleted in them; changes to the contents of a file do not affect the listing.
+ * Watches hold a handle on the directory on Windows and are polled on macOS, so only a few are kept. The listings of
+ * all other directories, and of directories that cannot be watched, are checked against the modification time of
+ * the directory instead, which costs one request instead of a full listing. Watch services do not see changes made
+ * by other machines on network shares, so a refresh always checks the modification time.
+ * <p>
+ * The limits are set with -Djrec.listing.cache.maxDirectories (default 256) and
+ * -Djrec.listing.cache.maxEntries (default 200000); a maximum of 0 disables the cache. The number of watched
+ * directories is set with -Djrec.listing.cache.maxWatched (default 8).
+ */
+class DirectoryListingCache
+{
+	private static final Logger logger = LoggerFactory.getLogger(DirectoryListingCache.class);
+
+	private final int maxDirectories;
+	private final int maxEntries;
+	private final int maxWatched;
+
+	// Access-ordered, so iteration starts at the least recently used directory
+	private final LinkedHashMap<File, CachedListing> listings = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<WatchKey, File> watchedDirectories = new HashMap<>();
+	private final WatchService watchService;
+	private int cachedEntries;
+
+	/**
+	 * A listing with the watch key of its directory; the key is null if the directory is not watched.
+	 * The key is guarded by the cache.
+	 */
+	private static class CachedListing
+	{
+		final DirectoryListing listing;
+		WatchKey watchKey;
+
+		CachedListing(DirectoryListing listing, WatchKey watchKey)
+		{
+			this.listing = listing;
+			this.watchKey = watchKey;
+		}
+	}
+
+	/**
+	 * Creates a new DirectoryListingCache with the limits from the system properties and starts its watcher thread.
+	 */
+	DirectoryListingCache()
+	{
+		this.maxDirectories = Integer.getInteger("jrec.listing.cache.maxDirectories", 256);
+		this.maxEntries = Integer.getInteger("jrec.listing.cache.maxEntries", 200_000);
+		this.maxWatched = Integer.getInteger("jrec.listing.cache.maxWatched", 8);
+
+		WatchService service = null;
+		if (maxDirectories > 0 && maxEntries > 0 && maxWatched > 0)
+		{
+			try
+			{
+				service = FileSystems.getDefault().newWatchService();
+			} catch (IOException | UnsupportedOperationException e)
+			{
+				logger.info("Directory watching not available, cached listings are checked by modification time: {}", e.getMessage());
+			}
+		}
+		this.watchService = service;
+
+		if (watchService != null)
+		{
+			Thread watcher = new Thread(this::processWatchEvents, "jrec-listing-watcher");
+			watcher.setDaemon(true);
+			watcher.start();
+		}
+		logger.info("Directory listing cache: {} directories, {} entries, {} watched", maxDirectories, maxEntries, maxWatched);
+	}
+
+	/**
+	 * Gets the cached listing of a directory if it is still current.
+	 *
+	 * @param directory  The canonical directory
+	 * @param revalidate Whether to check the modification time even if the directory is watched
+	 * @param watch      Whether the directory is navigated to and should be watched from now on
+	 * @return The listing, or null if the directory is not cached or has changed
+	 */
+	DirectoryListing get(File directory, boolean revalidate, boolean watch)
+	{
+		CachedListing cached;
+		WatchKey watchKey;
+		synchronized (this)
+		{
+			cached = listings.get(directory);
+			if (cached == null)
+			{
+				return null;
+			}
+			watchKey = cached.watchKey;
+		}
+
+		// The modification time is read outside the lock, it may take a while on a network share
+		if (revalidate || watchKey == null || !watchKey.isValid())
+		{
+			if (!isUnchanged(cached.listing))
+			{
+				logger.debug("Cached listing of {} is outdated", directory);
+				remove(directory, cached);
+				return null;
+			}
+		}
+
+		if (watch && watchKey == null)
+		{
+			watchKey = watch(directory);
+			if (watchKey != null)
+			{
+				synchronized (this)
+				{
+					CachedListing current = listings.get(directory);
+					if (current == cached && cached.watchKey == null)
+					{
+						cached.watchKey = watchKey;
+						trimWatches();
+					} else if (current == null || current.watchKey != watchKey)
+					{
+						watchedDirectories.remove(watchKey);
+						watchKey.cancel();
+					}
+				}
+				// A change between the check above and registering the watch raises no event
+				if (!isUnchanged(cached.listing))
+				{
+					remove(directory, cached);
+					return null;
+				}
+			}
+		}
+		return cached.listing;
+	}
+
+	/**
+	 * Caches a listing, evicting the least recently used listings beyond the limits. Listings of directories
+	 * that could not be read and listings larger than the entry limit are not cached.
+	 *
+	 * @param listing The listing to cache
+	 * @param watch   Whether the directory is navigated to and should be watched
+	 */
+	void put(DirectoryListing listing, boolean watch)
+	{
+		if (listing.getLastModified() < 0 || listing.size() > maxEntries || maxDirectories <= 0)
+		{
+			return;
+		}
+
+		File directory = listing.getDirectory();
+		WatchKey watchKey = watch ? watch(directory) : null;
+
+		synchronized (this)
+		{
+			CachedListing previous = listings.put(directory, new CachedListing(listing, watchKey));
+			if (previous != null)
+			{
+				cachedEntries -= previous.listing.size();
+				if (previous.watchKey != null && previous.watchKey != watchKey)
+				{
+					watchedDirectories.remove(previous.watchKey);
+					previous.watchKey.cancel();
+				}
+			}
+			cachedEntries += listing.size();
+
+			Iterator<Map.Entry<File, CachedListing>> eldest = listings.entrySet().iterator();
+			while ((listings.size() > maxDirectories || cachedEntries > maxEntries) && eldest.hasNext())
+			{
+				Map.Entry<File, CachedListing> entry = eldest.next();
+				if (entry.getKey().equals(directory))
+				{
+					continue;
+				}
+				eldest.remove();
+				release(entry.getValue());
+			}
+			trimWatches();
+		}
+
+		// A change between listing and registering the watch raises no event, but it shows in the modification time
+		if (watchKey != null && !isUnchanged(listing))
+		{
+			invalidate(directory);
+		}
+	}
+
+	/**
+	 * Checks if the directory of a listing still has the modification time it had when it was listed.
+	 */
+	private static boolean isUnchanged(DirectoryListing listing)
+	{
+		try
+		{
+			return Files.getLastModifiedTime(listing.getDirectory().toPath()).toMillis() == listing.getLastModified();
+		} catch (IOException | SecurityException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Drops the cached listing of a directory.
+	 *
+	 * @param directory The canonical directory
+	 */
+	synchronized void invalidate(File directory)
+	{
+		CachedListing cached = listings.remove(directory);
+		if (cached != null)
+		{
+			release(cached);
+		}
+	}
+
+	/**
+	 * Drops a cached listing unless it has been replaced in the meantime.
+	 */
+	private synchronized void remove(File directory, CachedListing cached)
+	{
+		if (listings.remove(directory, cached))
+		{
+			release(cached);
+		}
+	}
+
+	/**
+	 * Releases the entries and the watch of a listing that was removed from the cache.
+	 */
+	private void release(CachedListing cached)
+	{
+		cachedEntries -= cached.listing.size();
+		if (cached.watchKey != null)
+		{
+			watchedDirectories.remove(cached.watchKey);
+			cached.watchKey.cancel();
+		}
+	}
+
+	/**
+	 * Cancels the watches of all but the most recently used watched directories; their listings are checked by
+	 * modification time from then on. Called while holding the lock.
+	 */
+	private void trimWatches()
+	{
+		int watched = 0;
+		for (CachedListing cached : listings.values())
+		{
+			if (cached.watchKey != null)
+			{
+				watched++;
+			}
+		}
+		// Iteration starts at the least recently used directory
+		Iterator<CachedListing> eldest = listings.values().iterator();
+		while (watched > maxWatched && eldest.hasNext())
+		{
+			CachedListing cached = eldest.next();
+			if (cached.watchKey != null)
+			{
+				watchedDirectories.remove(cached.watchKey);
+				cached.watchKey.cancel();
+				cached.watchKey = null;
+				watched--;
+			}
+		}
+	}
+
+	/**
+	 * Registers a directory with the watch service. Registering a directory again returns the same key.
+	 *
+	 * @return The watch key, or null if the directory cannot be watched
+	 */
+	private WatchKey watch(File directory)
+	{
+		if (watchService == null)
+		{
+			return null;
+		}
+		try
+		{
+			WatchKey watchKey = directory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_DELETE);
+			synchronized (this)
+			{
+				watchedDirectories.put(watchKey, directory);
+			}
+			return watchKey;
+		} catch (IOException | UnsupportedOperationException | SecurityException | ClosedWatchServiceException e)
+		{
+			logger.debug("Cannot watch {}, falling back to modification time checks: {}", directory, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Drops the listings of watched directories as soon as they change. Runs on the watcher thread.
+	 */
+	private void processWatchEvents()
+	{
+		try
+		{
+			while (true)
+			{
+				WatchKey watchKey = watchService.take();
+				watchKey.pollEvents();
+
+				File directory;
+				synchronized (this)
+				{
+					directory = watchedDirectories.get(watchKey);
+				}
+				if (directory != null)
+				{
+					logger.debug("Directory changed, dropping cached listing of {}", directory);
+					invalidate(directory);
+				} else
+				{
+					watchKey.cancel();
+				}
+			}
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException e)
+		{
+			// Cache closed
+		}
+	}
+}
\ No newline at end of file
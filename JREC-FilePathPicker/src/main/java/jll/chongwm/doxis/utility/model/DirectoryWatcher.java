@@ -0,0 +1,200 @@
+package jll.chongwm.doxis.utility.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches the current directory and reports created, deleted and modified entries as {@link FileChangeEvent}s.
+ * <p>
+ * Only one directory is watched at a time. The events of one wake-up of the watch service are reported together,
+ * so a busy directory causes one update per batch rather than one per file. If the watch service drops events,
+ * the overflow handler is called so the directory can be listed again.
+ */
+class DirectoryWatcher
+{
+	private static final Logger logger = LoggerFactory.getLogger(DirectoryWatcher.class);
+
+	private final Consumer<List<FileChangeEvent>> changeConsumer;
+	private final Runnable overflowHandler;
+	private final WatchService watchService;
+
+	// Subdirectories of the watched directory, to tell whether a deleted entry was a directory
+	private final Set<File> subdirectories = ConcurrentHashMap.newKeySet();
+
+	private volatile WatchKey watchKey;
+	private volatile File directory;
+	private volatile long generation;
+
+	/**
+	 * Creates a new DirectoryWatcher and starts its thread.
+	 *
+	 * @param changeConsumer  Receives the changes of each batch on the watcher thread
+	 * @param overflowHandler Called on the watcher thread when events were lost
+	 */
+	DirectoryWatcher(Consumer<List<FileChangeEvent>> changeConsumer, Runnable overflowHandler)
+	{
+		this.changeConsumer = changeConsumer;
+		this.overflowHandler = overflowHandler;
+
+		WatchService service = null;
+		try
+		{
+			service = FileSystems.getDefault().newWatchService();
+		} catch (IOException | UnsupportedOperationException e)
+		{
+			logger.info("Directory watching not available, the file list is only updated on refresh: {}", e.getMessage());
+		}
+		this.watchService = service;
+
+		if (watchService != null)
+		{
+			Thread watcher = new Thread(this::processWatchEvents, "jrec-directory-watcher");
+			watcher.setDaemon(true);
+			watcher.start();
+		}
+	}
+
+	/**
+	 * Starts watching a directory instead of the previous one.
+	 *
+	 * @param newDirectory  The canonical directory to watch
+	 * @param newGeneration The generation of the listing the events will belong to
+	 */
+	synchronized void watch(File newDirectory, long newGeneration)
+	{
+		WatchKey previous = watchKey;
+		watchKey = null;
+		subdirectories.clear();
+		directory = newDirectory;
+		generation = newGeneration;
+
+		if (watchService == null)
+		{
+			return;
+		}
+		try
+		{
+			WatchKey key = newDirectory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+			watchKey = key;
+
+			// Registering the same directory again returns the same key, which must stay valid
+			if (previous != null && previous != key)
+			{
+				previous.cancel();
+			}
+		} catch (IOException | UnsupportedOperationException | SecurityException | ClosedWatchServiceException e)
+		{
+			logger.debug("Cannot watch {}: {}", newDirectory, e.getMessage());
+			if (previous != null)
+			{
+				previous.cancel();
+			}
+		}
+	}
+
+	/**
+	 * Records subdirectories read by the listing of the watched directory.
+	 *
+	 * @param listedSubdirectories The subdirectories
+	 */
+	void addSubdirectories(Collection<File> listedSubdirectories)
+	{
+		subdirectories.addAll(listedSubdirectories);
+	}
+
+	/**
+	 * Turns the events of the watched directory into change events. Runs on the watcher thread.
+	 */
+	private void processWatchEvents()
+	{
+		try
+		{
+			while (true)
+			{
+				WatchKey key = watchService.take();
+				List<WatchEvent<?>> events = key.pollEvents();
+				List<FileChangeEvent> changes = new ArrayList<>();
+				boolean overflow = false;
+
+				File watchedDirectory;
+				long watchedGeneration;
+				synchronized (this)
+				{
+					watchedDirectory = key == watchKey ? directory : null;
+					watchedGeneration = generation;
+				}
+
+				if (watchedDirectory != null)
+				{
+					for (WatchEvent<?> event : events)
+					{
+						if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+						{
+							overflow = true;
+						} else
+						{
+							changes.add(toChange(event, watchedDirectory, watchedGeneration));
+						}
+					}
+				}
+
+				// Keep receiving events; a cancelled or deleted directory makes the key invalid
+				key.reset();
+
+				if (overflow)
+				{
+					logger.debug("Lost events for {}, listing it again", watchedDirectory);
+					overflowHandler.run();
+				} else if (!changes.isEmpty())
+				{
+					changeConsumer.accept(changes);
+				}
+			}
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException e)
+		{
+			// Watcher closed
+		}
+	}
+
+	/**
+	 * Converts a watch event of the watched directory.
+	 */
+	private FileChangeEvent toChange(WatchEvent<?> event, File watchedDirectory, long watchedGeneration)
+	{
+		File file = watchedDirectory.toPath().resolve((Path) event.context()).toFile();
+
+		if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE)
+		{
+			return new FileChangeEvent(FileChangeEvent.Kind.DELETED, file, subdirectories.remove(file), watchedGeneration);
+		}
+
+		boolean isDirectory = Files.isDirectory(file.toPath());
+		if (isDirectory)
+		{
+			subdirectories.add(file);
+		}
+		FileChangeEvent.Kind kind = event.kind() == StandardWatchEventKinds.ENTRY_CREATE ? FileChangeEvent.Kind.CREATED : FileChangeEvent.Kind.MODIFIED;
+		return new FileChangeEvent(kind, file, isDirectory, watchedGeneration);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package jll.chongwm.doxis.utility.model;
+
+import java.io.File;
+
+/**
+ * A change of a single entry of the current directory, reported while the directory is shown.
+ * <p>
+ * Events belong to the listing of the directory they were observed in; events of a listing that was superseded
+ * must be ignored, see {@link FileSystemModel#isCurrentListing(FileChangeEvent)}.
+ */
+public class FileChangeEvent
+{
+	/**
+	 * The kinds of change.
+	 */
+	public enum Kind
+	{
+		CREATED, DELETED, MODIFIED
+	}
+
+	private final Kind kind;
+	private final File file;
+	private final boolean directory;
+	private final long generation;
+
+	/**
+	 * Creates a new FileChangeEvent.
+	 *
+	 * @param kind       The kind of change
+	 * @param file       The entry that changed
+	 * @param directory  Whether the entry is (or, if deleted, was) a directory
+	 * @param generation The generation of the listing the event belongs to
+	 */
+	public FileChangeEvent(Kind kind, File file, boolean directory, long generation)
+	{
+		this.kind = kind;
+		this.file = file;
+		this.directory = directory;
+		this.generation = generation;
+	}
+
+	/**
+	 * Gets the kind of change.
+	 *
+	 * @return The kind
+	 */
+	public Kind getKind()
+	{
+		return kind;
+	}
+
+	/**
+	 * Gets the entry that changed.
+	 *
+	 * @return The file or directory
+	 */
+	public File getFile()
+	{
+		return file;
+	}
+
+	/**
+	 * Checks if the entry is a directory. For a deleted entry this tells whether it was a directory.
+	 *
+	 * @return true for a directory
+	 */
+	public boolean isDirectory()
+	{
+		return directory;
+	}
+
+	/**
+	 * Gets the generation of the listing this event belongs to.
+	 *
+	 * @return The listing generation
+	 */
+	public long getGeneration()
+	{
+		return generation;
+	}
+
+	@Override
+	public String toString()
+	{
+		return kind + " " + file;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,118 @@
+package jll.chongwm.doxis.utility.model;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A part of a directory listing, published while the directory is still being read.
+ * <p>
+ * The first chunk of a listing replaces whatever was shown before; the following chunks are appended. Every
+ * listing has a generation; chunks of a listing that was superseded by a later one must be ignored,
+ * see {@link FileSystemModel#isCurrentListing(FileListChunk)}.
+ */
+public class FileListChunk
+{
+	private final File directory;
+	private final long generation;
+	private final List<File> files;
+	private final List<File> subdirectories;
+	private final Set<File> symbolicLinks;
+	private final boolean first;
+	private final boolean last;
+
+	/**
+	 * Creates a new FileListChunk.
+	 *
+	 * @param directory      The listed directory
+	 * @param generation     The generation of the listing
+	 * @param files          The files (non-directories) read since the previous chunk
+	 * @param subdirectories The subdirectories read since the previous chunk
+	 * @param symbolicLinks  The files and subdirectories of this chunk that are symbolic links or could not be read
+	 * @param first          Whether this is the first chunk of the listing
+	 * @param last           Whether this is the last chunk of the listing
+	 */
+	public FileListChunk(File directory, long generation, List<File> files, List<File> subdirectories, Set<File> symbolicLinks, boolean first,
+			boolean last)
+	{
+		this.directory = directory;
+		this.generation = generation;
+		this.files = Collections.unmodifiableList(files);
+		this.subdirectories = Collections.unmodifiableList(subdirectories);
+		this.symbolicLinks = Collections.unmodifiableSet(symbolicLinks);
+		this.first = first;
+		this.last = last;
+	}
+
+	/**
+	 * Gets the listed directory.
+	 *
+	 * @return The directory
+	 */
+	public File getDirectory()
+	{
+		return directory;
+	}
+
+	/**
+	 * Gets the generation of the listing this chunk belongs to.
+	 *
+	 * @return The listing generation
+	 */
+	public long getGeneration()
+	{
+		return generation;
+	}
+
+	/**
+	 * Gets the files of this chunk.
+	 *
+	 * @return Unmodifiable list of files
+	 */
+	public List<File> getFiles()
+	{
+		return files;
+	}
+
+	/**
+	 * Gets the subdirectories of this chunk.
+	 *
+	 * @return Unmodifiable list of subdirectories
+	 */
+	public List<File> getSubdirectories()
+	{
+		return subdirectories;
+	}
+
+	/**
+	 * Gets the entries of this chunk that are symbolic links or could not be read. All other entries are children of
+	 * the canonical directory, so their path is already canonical.
+	 *
+	 * @return Unmodifiable set of files and subdirectories
+	 */
+	public Set<File> getSymbolicLinks()
+	{
+		return symbolicLinks;
+	}
+
+	/**
+	 * Checks if this is the first chunk of the listing, which replaces the previous listing.
+	 *
+	 * @return true for the first chunk
+	 */
+	public boolean isFirst()
+	{
+		return first;
+	}
+
+	/**
+	 * Checks if this is the last chunk of the listing.
+	 *
+	 * @return true for the last chunk
+	 */
+	public boolean isLast()
+	{
+		return last;
+	}
+}
\ No newline at end of file
@@ -5,12 +5,23 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,13 +39,65 @@ public class FileSystemModel
 	// Current directory
 	private File currentDirectory;
 
-	// Map to track file selection states (canonical path -> FileRecord)
-	private final ConcurrentMap<String, FileRecord> fileRecordMap = new ConcurrentHashMap<>();
+	// Listing of the current directory, shared by getFiles() and getSubdirectories()
+	private volatile DirectoryListing currentListing;
+
+	// Recently listed directories, so going back and forth does not read them again
+	private final DirectoryListingCache listingCache = new DirectoryListingCache();
+
+	// Reports changes of the current directory while it is shown
+	private final DirectoryWatcher directoryWatcher = new DirectoryWatcher(this::notifyFileChanges, this::reloadCurrentDirectory);
+
+	// Generation of the latest listing; a listing stops as soon as a newer one is started
+	private final AtomicLong listingGeneration = new AtomicLong();
+
+	// Sequence of the latest call to setCurrentDirectory; only the latest one changes the directory
+	private final AtomicLong navigationSequence = new AtomicLong();
+	private final Object navigationLock = new Object();
+
+	// Directories are listed here, one at a time, so navigation returns at once and the entries stream in
+	private final ExecutorService listingExecutor = Executors.newSingleThreadExecutor(r ->
+	{
+		Thread thread = new Thread(r, "jrec-directory-listing");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// Changes reported while the current directory is listed wait for the listing to complete; afterwards the
+	// entries shown are tracked, so a change the listing already contains is not reported again
+	private final Object changeLock = new Object();
+	private long changeGeneration;
+	private List<FileChangeEvent> pendingChanges = new ArrayList<>();
+	private Set<File> listedEntries;
+
+	// Paths of visited and listed directories, for completing typed paths
+	private final PathIndex pathIndex = new PathIndex();
+
+	// Directories whose subdirectories are indexed ahead of typing; only the latest request waits in the queue
+	private final ThreadPoolExecutor prefetchExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), r ->
+	{
+		Thread thread = new Thread(r, "jrec-path-prefetch");
+		thread.setDaemon(true);
+		return thread;
+	}, new ThreadPoolExecutor.DiscardOldestPolicy());
+	private volatile File lastPrefetched;
+
+	// Canonical paths of the files shown, so rendering needs no file system calls; cleared for every listing
+	private final ConcurrentMap<File, String> canonicalPaths = new ConcurrentHashMap<>();
+
+	// File selection states by canonical path, packed so millions of records fit in little heap
+	private final CompactRecordStore recordStore = new CompactRecordStore();
+
+	// Selection counters, kept in step with recordStore so they never need a scan of all records
+	private final AtomicInteger selectedCount = new AtomicInteger();
+	private final ConcurrentMap<String, Integer> selectedCountByDirectory = new ConcurrentHashMap<>();
 
 	// Observers for model changes
 	private final List<Consumer<File>> directoryChangeObservers = Collections.synchronizedList(new ArrayList<>());
 	private final List<Consumer<List<File>>> fileListChangeObservers = Collections.synchronizedList(new ArrayList<>());
-	private final List<Consumer<FileRecord>> fileRecordChangeObservers = Collections.synchronizedList(new ArrayList<>());
+	private final List<Consumer<FileListChunk>> fileListChunkObservers = Collections.synchronizedList(new ArrayList<>());
+	private final List<Consumer<List<FileChangeEvent>>> fileChangeObservers = Collections.synchronizedList(new ArrayList<>());
+	private final List<Consumer<List<FileRecord>>> fileRecordChangeObservers = Collections.synchronizedList(new ArrayList<>());
 
 	/**
 	 * Private constructor for singleton
@@ -48,7 +111,7 @@ public class FileSystemModel
 	        File startDir = new File(customStartDir);
 	        if (startDir.exists() && startDir.isDirectory()) 
 	        {
-	            this.currentDirectory = startDir;
+	            this.currentDirectory = canonicalize(startDir);
 	            logger.info("FileSystemModel initialized with custom directory: {}", currentDirectory.getAbsolutePath());
 	            return;
 	        } else 
@@ -58,11 +121,26 @@ public class FileSystemModel
 	    }
 	    
 	    // Fall back to user's home directory by default
-	    this.currentDirectory = new File(System.getProperty("user.home"));
+	    this.currentDirectory = canonicalize(new File(System.getProperty("user.home")));
 	    logger.info("FileSystemModel initialized with home directory: {}", currentDirectory.getAbsolutePath());
 	}		
 		
 
+	/**
+	 * Gets the canonical form of a start directory, so paths of listed files are canonical too.
+	 */
+	private static File canonicalize(File directory)
+	{
+		try
+		{
+			return directory.getCanonicalFile();
+		} catch (IOException e)
+		{
+			logger.warn("Could not get canonical path of {}", directory, e);
+			return directory.getAbsoluteFile();
+		}
+	}
+
 	/**
 	 * Gets the singleton instance of the model.
 	 * 
@@ -88,13 +166,23 @@ public class FileSystemModel
 	}
 
 	/**
-	 * Sets the current directory and notifies observers.
+	 * Sets the current directory and notifies observers. The directory is listed in the background: its entries are
+	 * published to the file list chunk observers as they are read, and the file list change observers are notified
+	 * once the listing is complete. A listing still running for the previous directory is cancelled.
+	 * <p>
+	 * Recently visited directories are served from the listing cache. Setting the directory that is already current
+	 * is a refresh, which checks the modification time of a cached listing before using it. While the directory is
+	 * current, entries created, deleted or modified in it are reported to the file change observers.
+	 * <p>
+	 * Checking and resolving the directory may be slow, so calls from several threads can overlap. Only the latest
+	 * call changes the directory: an earlier call that finishes later, or whose thread is interrupted, does nothing.
 	 * 
 	 * @param directory The new current directory
 	 * @return true if directory was changed successfully
 	 */
 	public boolean setCurrentDirectory(File directory)
 	{
+		long navigation = navigationSequence.incrementAndGet();
 		if (directory == null || !directory.exists() || !directory.isDirectory())
 		{
 			logger.warn("Invalid directory: {}", directory);
@@ -104,10 +192,18 @@ public class FileSystemModel
 		try
 		{
 			File canonicalDir = directory.getCanonicalFile();
-			this.currentDirectory = canonicalDir;
-			notifyDirectoryChanged();
-
-			List<File> files = getFiles(); // This will also notify observers
+			synchronized (navigationLock)
+			{
+				if (navigationSequence.get() != navigation || Thread.currentThread().isInterrupted())
+				{
+					logger.debug("Navigation to {} superseded", canonicalDir);
+					return false;
+				}
+				boolean refresh = canonicalDir.equals(currentDirectory);
+				this.currentDirectory = canonicalDir;
+				notifyDirectoryChanged();
+				listDirectory(canonicalDir, refresh);
+			}
 
 			return true;
 		} catch (IOException e)
@@ -117,6 +213,147 @@ public class FileSystemModel
 		}
 	}
 
+	/**
+	 * Lists the current directory again without changing it, streaming the entries like {@link #setCurrentDirectory(File)}.
+	 * A cached listing is used if the directory has not been modified since.
+	 */
+	public void reloadCurrentDirectory()
+	{
+		listDirectory(currentDirectory, true);
+	}
+
+	/**
+	 * Checks if a chunk belongs to the latest listing. Chunks of superseded listings may still be queued
+	 * for the observers and must be dropped.
+	 * 
+	 * @param chunk The chunk to check
+	 * @return true if the chunk belongs to the latest listing
+	 */
+	public boolean isCurrentListing(FileListChunk chunk)
+	{
+		return chunk.getGeneration() == listingGeneration.get();
+	}
+
+	/**
+	 * Checks if a change event belongs to the latest listing, see {@link #isCurrentListing(FileListChunk)}.
+	 * 
+	 * @param event The event to check
+	 * @return true if the event belongs to the latest listing
+	 */
+	public boolean isCurrentListing(FileChangeEvent event)
+	{
+		return event.getGeneration() == listingGeneration.get();
+	}
+
+	/**
+	 * Starts listing a directory in the background, cancelling the previous listing. A cached listing is published
+	 * as a single chunk.
+	 * 
+	 * @param directory  The directory to list
+	 * @param revalidate Whether to check the modification time of a cached listing even if the directory is watched
+	 */
+	private void listDirectory(File directory, boolean revalidate)
+	{
+		long generation = listingGeneration.incrementAndGet();
+		listingExecutor.execute(() ->
+		{
+			if (listingGeneration.get() != generation)
+			{
+				return;
+			}
+
+			// Watch before reading, so no change made while listing is missed
+			synchronized (changeLock)
+			{
+				changeGeneration = generation;
+				pendingChanges = new ArrayList<>();
+				listedEntries = null;
+			}
+			directoryWatcher.watch(directory, generation);
+			canonicalPaths.clear();
+			pathIndex.add(directory);
+
+			DirectoryListing listing = listingCache.get(directory, revalidate, true);
+			if (listing != null)
+			{
+				logger.debug("Using cached listing of {}", directory);
+				notifyFileListChunk(new FileListChunk(directory, generation, listing.getFiles(), listing.getSubdirectories(),
+						listing.getSymbolicLinks(), true, true));
+			} else
+			{
+				listing = DirectoryListing.stream(directory, generation, this::notifyFileListChunk, () -> listingGeneration.get() != generation);
+				if (listing == null)
+				{
+					return;
+				}
+				listingCache.put(listing, true);
+			}
+
+			if (listingGeneration.get() == generation)
+			{
+				currentListing = listing;
+				notifyFileListChanged(listing.getFiles());
+				applyPendingChanges(listing, generation);
+			}
+		});
+	}
+
+	/**
+	 * Reports the changes that came in while a directory was listed, leaving out those the listing already shows.
+	 * 
+	 * @param listing    The complete listing
+	 * @param generation The generation of the listing
+	 */
+	private void applyPendingChanges(DirectoryListing listing, long generation)
+	{
+		synchronized (changeLock)
+		{
+			if (changeGeneration != generation)
+			{
+				return;
+			}
+			listedEntries = new HashSet<>(listing.getFiles());
+			listedEntries.addAll(listing.getSubdirectories());
+			List<FileChangeEvent> changes = pendingChanges;
+			pendingChanges = new ArrayList<>();
+			publishFileChanges(reconcile(changes));
+		}
+	}
+
+	/**
+	 * Keeps the changes that make a difference to the entries shown and updates the entries. A file created while
+	 * the directory was listed may be both in the listing and reported as created; one deleted before the listing
+	 * reached it is reported as deleted but was never shown. Called with changeLock held.
+	 * 
+	 * @param changes The changes in the order they were reported
+	 * @return The changes to report
+	 */
+	private List<FileChangeEvent> reconcile(List<FileChangeEvent> changes)
+	{
+		List<FileChangeEvent> applied = new ArrayList<>();
+		for (FileChangeEvent change : changes)
+		{
+			boolean shown;
+			switch (change.getKind())
+			{
+			case CREATED:
+				shown = listedEntries.add(change.getFile());
+				break;
+			case DELETED:
+				shown = listedEntries.remove(change.getFile());
+				break;
+			default:
+				shown = listedEntries.contains(change.getFile());
+				break;
+			}
+			if (shown)
+			{
+				applied.add(change);
+			}
+		}
+		return applied;
+	}
+
 	/**
 	 * Gets the parent directory of the current directory.
 	 * 
@@ -149,20 +386,63 @@ public class FileSystemModel
 	 */
 	public List<File> getSubdirectories()
 	{
-		try
+		return getCurrentListing().getSubdirectories();
+	}
+
+	/**
+	 * Gets the subdirectories of any directory, from the listing cache if possible. Reads the directory
+	 * if it is not cached, so it should not be called on the event dispatch thread.
+	 * 
+	 * @param directory The directory
+	 * @return List of subdirectories
+	 */
+	public List<File> listSubdirectories(File directory)
+	{
+		DirectoryListing listing = listingCache.get(directory, false, false);
+		if (listing == null)
 		{
-			File[] files = currentDirectory.listFiles(File::isDirectory);
-			if (files == null)
-			{
-				logger.warn("Could not list subdirectories in {}", currentDirectory);
-				return Collections.emptyList();
-			}
-			return Arrays.asList(files);
-		} catch (SecurityException e)
+			listing = DirectoryListing.list(directory);
+			listingCache.put(listing, false);
+		}
+		pathIndex.addAll(listing.getSubdirectories());
+		return listing.getSubdirectories();
+	}
+
+	/**
+	 * Gets known directories whose path starts with a typed path. Only visited directories and directories
+	 * seen in listings are known, so this makes no file system calls and can be called on the event dispatch thread.
+	 * 
+	 * @param prefix     The typed path
+	 * @param maxResults The maximum number of paths to return
+	 * @return The paths of the directories, nearest first
+	 */
+	public List<String> getPathCompletions(String prefix, int maxResults)
+	{
+		return pathIndex.complete(prefix, maxResults);
+	}
+
+	/**
+	 * Lists the subdirectories of a directory in the background so they can be completed. A request still
+	 * waiting is replaced by a newer one.
+	 * 
+	 * @param directory The directory, e.g. the parent of a typed path
+	 * @param onIndexed Called on the prefetch thread once the subdirectories are indexed
+	 */
+	public void prefetchPathCompletions(File directory, Runnable onIndexed)
+	{
+		if (directory.equals(lastPrefetched))
 		{
-			logger.error("Security exception listing subdirectories", e);
-			return Collections.emptyList();
+			return;
 		}
+		lastPrefetched = directory;
+		prefetchExecutor.execute(() ->
+		{
+			if (directory.isDirectory())
+			{
+				listSubdirectories(directory);
+				onIndexed.run();
+			}
+		});
 	}
 
 	/**
@@ -172,51 +452,122 @@ public class FileSystemModel
 	 */
 	public List<File> getFiles()
 	{
-		try
+		List<File> fileList = getCurrentListing().getFiles();
+		notifyFileListChanged(fileList);
+		return fileList;
+	}
+
+	/**
+	 * Gets the listing of the current directory. The directory is listed once per directory change;
+	 * it is only read here if no listing was made for it yet.
+	 * 
+	 * @return The listing of the current directory
+	 */
+	private DirectoryListing getCurrentListing()
+	{
+		File directory = currentDirectory;
+		DirectoryListing listing = currentListing;
+		if (listing == null || !listing.getDirectory().equals(directory))
 		{
-			File[] files = currentDirectory.listFiles(file -> !file.isDirectory());
-			if (files == null)
+			listing = listingCache.get(directory, false, true);
+			if (listing == null)
 			{
-				logger.warn("Could not list files in {}", currentDirectory);
-				return Collections.emptyList();
+				listing = DirectoryListing.list(directory);
+				listingCache.put(listing, true);
 			}
-			List<File> fileList = Arrays.asList(files);
-			notifyFileListChanged(fileList);
-			return fileList;
-		} catch (SecurityException e)
+			currentListing = listing;
+		}
+		return listing;
+	}
+
+	/**
+	 * Gets the canonical path of a file. Paths of listed files are known from the listing; other paths are
+	 * resolved once and cached until the next listing.
+	 * 
+	 * @param file The file
+	 * @return The canonical path
+	 * @throws IOException If the path cannot be resolved
+	 */
+	public String getCanonicalPath(File file) throws IOException
+	{
+		String canonicalPath = canonicalPaths.get(file);
+		if (canonicalPath == null)
 		{
-			logger.error("Security exception listing files", e);
-			return Collections.emptyList();
+			canonicalPath = file.getCanonicalPath();
+			canonicalPaths.put(file, canonicalPath);
 		}
+		return canonicalPath;
 	}
 
 	/**
-	 * Updates the selection state for a file.
+	 * Updates the selection state for a file, e.g. for a single click. Use
+	 * {@link #updateFileSelections(Collection, boolean)} for many files.
 	 * 
 	 * @param file     The file to update
 	 * @param selected Whether the file is selected
-	 * @return true if the state was successfully updated
+	 * @return The record of the file, to be queued for synchronization, or null if the file attributes cannot be read
 	 */
-	public boolean updateFileSelection(File file, boolean selected)
+	public FileRecord updateFileSelection(File file, boolean selected)
 	{
-		try
+		FileRecord record = createFileRecord(file, System.getProperty("user.name"), selected);
+		if (record == null)
 		{
-			String canonicalPath = file.getCanonicalPath();
-			long lastModified = file.lastModified();
-			String username = System.getProperty("user.name");
+			return null;
+		}
+		storeFileRecord(record, false);
+		notifyFileRecordsChanged(Collections.singletonList(record));
+		return record;
+	}
 
+	/**
+	 * Updates the selection state of many files at once. The file attributes are read in parallel, so this should
+	 * not be called on the event dispatch thread. Observers are notified once with all updated records.
+	 * 
+	 * @param files    The files to update
+	 * @param selected Whether the files are selected
+	 * @return The records of the files that were updated, to be queued for synchronization
+	 */
+	public List<FileRecord> updateFileSelections(Collection<File> files, boolean selected)
+	{
+		String username = System.getProperty("user.name");
+		List<FileRecord> records = files.parallelStream()
+				.map(file -> createFileRecord(file, username, selected))
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+
+		for (FileRecord record : records)
+		{
+			storeFileRecord(record, false);
+		}
+		if (!records.isEmpty())
+		{
+			notifyFileRecordsChanged(records);
+		}
+		logger.debug("Updated selection of {} files ({})", records.size(), selected);
+		return records;
+	}
+
+	/**
+	 * Creates the record of a file selection, reading the modification time of the file.
+	 * 
+	 * @param file     The file
+	 * @param username The user making the selection
+	 * @param selected Whether the file is selected
+	 * @return The record, or null if the file attributes cannot be read
+	 */
+	private FileRecord createFileRecord(File file, String username, boolean selected)
+	{
+		try
+		{
+			String canonicalPath = getCanonicalPath(file);
 			BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
 			long timestamp = attrs.lastModifiedTime().toMillis();
 
-			FileRecord record = new FileRecord(canonicalPath, timestamp, username, selected);
-			fileRecordMap.put(canonicalPath, record);
-			notifyFileRecordChanged(record);
-
-			return true;
+			return new FileRecord(canonicalPath, timestamp, username, selected);
 		} catch (IOException e)
 		{
 			logger.error("Error updating file selection for {}", file, e);
-			return false;
+			return null;
 		}
 	}
 
@@ -230,9 +581,8 @@ public class FileSystemModel
 	{
 		try
 		{
-			String canonicalPath = file.getCanonicalPath();
-			FileRecord record = fileRecordMap.get(canonicalPath);
-			return record != null && record.isSelected();
+			String canonicalPath = getCanonicalPath(file);
+			return recordStore.isSelected(canonicalPath);
 		} catch (IOException e)
 		{
 			logger.error("Error checking file selection for {}", file, e);
@@ -247,44 +597,35 @@ public class FileSystemModel
 	 */
 	public List<FileRecord> getAllFileRecords()
 	{
-		return new ArrayList<>(fileRecordMap.values());
+		return recordStore.values();
 	}
 
 	/**
-	 * Updates file records from external source (e.g., DynamoDB). Only updates records if the timestamp is newer.
+	 * Updates file records from external source (e.g., DynamoDB). Only updates records if the timestamp is newer. May be
+	 * called concurrently, for example once per scanned page.
 	 * 
 	 * @param records Records to update
 	 */
 	public void updateFileRecords(List<FileRecord> records)
 	{
+		String currentPath = currentDirectory.getPath();
+		List<FileRecord> visibleUpdates = new ArrayList<>();
+
 		for (FileRecord newRecord : records)
 		{
-			fileRecordMap.compute(newRecord.getFilePath(), (key, existingRecord) ->
-			{
-				if (existingRecord == null || newRecord.getTimestamp() > existingRecord.getTimestamp())
-				{
-					return newRecord;
-				}
-				return existingRecord;
-			});
-		}
+			FileRecord stored = storeFileRecord(newRecord, true);
 
-		// Notify observers for visible files
-		try
-		{
-			List<File> currentFiles = Arrays.asList(currentDirectory.listFiles(file -> !file.isDirectory()));
-			for (File file : currentFiles)
+			// Only records that were applied and live in the current directory are visible
+			if (stored == newRecord && currentPath.equals(new File(newRecord.getFilePath()).getParent()))
 			{
-				String canonicalPath = file.getCanonicalPath();
-				FileRecord record = fileRecordMap.get(canonicalPath);
-				if (record != null)
-				{
-					notifyFileRecordChanged(record);
-				}
+				visibleUpdates.add(newRecord);
 			}
-		} catch (Exception e)
+		}
+
+		// Notify observers for visible files, once for the whole batch
+		if (!visibleUpdates.isEmpty())
 		{
-			logger.error("Error notifying observers after record update", e);
+			notifyFileRecordsChanged(visibleUpdates);
 		}
 	}
 
@@ -293,7 +634,84 @@ public class FileSystemModel
 	 */
 	public void clearFileRecords()
 	{
-		fileRecordMap.clear();
+		recordStore.clear(existingRecord -> trackSelection(existingRecord, null));
+	}
+
+	/**
+	 * Gets the number of selected files.
+	 * 
+	 * @return The selected file count
+	 */
+	public int getSelectedCount()
+	{
+		return selectedCount.get();
+	}
+
+	/**
+	 * Gets the number of selected files in a directory, not counting subdirectories.
+	 * 
+	 * @param directory The canonical directory
+	 * @return The selected file count of the directory
+	 */
+	public int getSelectedCount(File directory)
+	{
+		return selectedCountByDirectory.getOrDefault(directory.getPath(), 0);
+	}
+
+	/**
+	 * Gets the paths of all selected files. Only the paths of selected records are decoded, no other records are created.
+	 * 
+	 * @return List of canonical paths of selected files
+	 */
+	public List<String> getSelectedFilePaths()
+	{
+		return recordStore.selectedPaths();
+	}
+
+	/**
+	 * Stores a record and updates the selection counters in the same atomic step.
+	 * 
+	 * @param record    The record to store
+	 * @param newerOnly Whether to keep an existing record with the same or a newer timestamp
+	 * @return The record stored for the path afterwards
+	 */
+	private FileRecord storeFileRecord(FileRecord record, boolean newerOnly)
+	{
+		return recordStore.compute(record.getFilePath(), existingRecord ->
+		{
+			if (newerOnly && existingRecord != null && record.getTimestamp() <= existingRecord.getTimestamp())
+			{
+				return existingRecord;
+			}
+			trackSelection(existingRecord, record);
+			return record;
+		});
+	}
+
+	/**
+	 * Updates the selection counters for a record that replaces another. Called while the path is locked
+	 * in recordStore, so changes of the same path are counted in order.
+	 * 
+	 * @param previous The replaced record, or null
+	 * @param next     The new record, or null if the record is removed
+	 */
+	private void trackSelection(FileRecord previous, FileRecord next)
+	{
+		boolean wasSelected = previous != null && previous.isSelected();
+		boolean isSelected = next != null && next.isSelected();
+		if (wasSelected == isSelected)
+		{
+			return;
+		}
+
+		String path = isSelected ? next.getFilePath() : previous.getFilePath();
+		int delta = isSelected ? 1 : -1;
+		selectedCount.addAndGet(delta);
+		selectedCountByDirectory.compute(Objects.toString(new File(path).getParent(), ""), (directory, count) ->
+		{
+			int updated = (count == null ? 0 : count) + delta;
+			return updated == 0 ? null : updated;
+		});
 	}
 
 	/**
@@ -317,11 +735,32 @@ public class FileSystemModel
 	}
 
 	/**
-	 * Adds a file record change observer.
+	 * Adds a file list chunk observer. Chunks are published on the listing thread.
+	 * 
+	 * @param observer The observer to add
+	 */
+	public void addFileListChunkObserver(Consumer<FileListChunk> observer)
+	{
+		fileListChunkObservers.add(observer);
+	}
+
+	/**
+	 * Adds a file change observer. Each call receives the changes observed together, on the watcher thread.
+	 * 
+	 * @param observer The observer to add
+	 */
+	public void addFileChangeObserver(Consumer<List<FileChangeEvent>> observer)
+	{
+		fileChangeObservers.add(observer);
+	}
+
+	/**
+	 * Adds a file record change observer. Each call receives the records that changed together, such as
+	 * the visible records of a merged page.
 	 * 
 	 * @param observer The observer to add
 	 */
-	public void addFileRecordChangeObserver(Consumer<FileRecord> observer)
+	public void addFileRecordChangeObserver(Consumer<List<FileRecord>> observer)
 	{
 		fileRecordChangeObservers.add(observer);
 	}
@@ -350,16 +789,100 @@ public class FileSystemModel
 		}
 	}
 
+	/**
+	 * Notifies all file list chunk observers.
+	 * 
+	 * @param chunk The chunk that was read
+	 */
+	private void notifyFileListChunk(FileListChunk chunk)
+	{
+		directoryWatcher.addSubdirectories(chunk.getSubdirectories());
+		pathIndex.addAll(chunk.getSubdirectories());
+		if (isCurrentListing(chunk))
+		{
+			cacheCanonicalPaths(chunk.getFiles(), chunk.getSymbolicLinks());
+			cacheCanonicalPaths(chunk.getSubdirectories(), chunk.getSymbolicLinks());
+		}
+		for (Consumer<FileListChunk> observer : fileListChunkObservers)
+		{
+			observer.accept(chunk);
+		}
+	}
+
+	/**
+	 * Caches the paths of listed entries that are not symbolic links. They are children of the canonical
+	 * current directory, so their path is their canonical path.
+	 * 
+	 * @param entries       The listed entries
+	 * @param symbolicLinks The entries whose canonical path is not known
+	 */
+	private void cacheCanonicalPaths(List<File> entries, Set<File> symbolicLinks)
+	{
+		for (File entry : entries)
+		{
+			if (!symbolicLinks.contains(entry))
+			{
+				canonicalPaths.put(entry, entry.getPath());
+			}
+		}
+	}
+
+	/**
+	 * Receives changes of the current directory from the watcher. While the directory is listed they are held back;
+	 * afterwards they are reported to the file change observers if they change the entries shown.
+	 * 
+	 * @param changes The changes observed together
+	 */
+	private void notifyFileChanges(List<FileChangeEvent> changes)
+	{
+		synchronized (changeLock)
+		{
+			if (changes.get(0).getGeneration() != changeGeneration)
+			{
+				return;
+			}
+			if (listedEntries == null)
+			{
+				pendingChanges.addAll(changes);
+				return;
+			}
+			publishFileChanges(reconcile(changes));
+		}
+	}
+
+	/**
+	 * Notifies the file change observers of reconciled changes. Called with changeLock held, so changes
+	 * are reported in order. Created or deleted entries make the complete listing outdated, so the next call
+	 * to {@link #getFiles()} lists the directory again.
+	 * 
+	 * @param changes The changes to report
+	 */
+	private void publishFileChanges(List<FileChangeEvent> changes)
+	{
+		if (changes.isEmpty() || !isCurrentListing(changes.get(0)))
+		{
+			return;
+		}
+		if (changes.stream().anyMatch(change -> change.getKind() != FileChangeEvent.Kind.MODIFIED))
+		{
+			currentListing = null;
+		}
+		for (Consumer<List<FileChangeEvent>> observer : fileChangeObservers)
+		{
+			observer.accept(changes);
+		}
+	}
+
 	/**
 	 * Notifies all file record change observers.
 	 * 
-	 * @param record The file record that changed
+	 * @param records The file records that changed
 	 */
-	private void notifyFileRecordChanged(FileRecord record)
+	private void notifyFileRecordsChanged(List<FileRecord> records)
 	{
-		for (Consumer<FileRecord> observer : fileRecordChangeObservers)
+		for (Consumer<List<FileRecord>> observer : fileRecordChangeObservers)
 		{
-			observer.accept(record);
+			observer.accept(records);
 		}
 	}
 }
\ No newline at end of file
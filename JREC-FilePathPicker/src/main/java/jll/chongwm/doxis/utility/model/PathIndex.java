@@ -0,0 +1,157 @@
+package jll.chongwm.doxis.utility.model;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Sorted index over the paths of known directories, for completing typed paths without file system calls.
+ * <p>
+ * The keys are kept in a sorted map, so the directories starting with a prefix are one contiguous range. Completions
+ * come out nearest first, i.e. with the fewest path separators after the prefix, and then in alphabetical order. For
+ * Windows paths the keys are lower-cased and '/' is read as '\', as Windows does, while the original path is
+ * returned. The number of paths is bounded by -Djrec.path.index.maxEntries (default 50000); beyond that the least
+ * recently seen directories are dropped, so newly visited directories are always indexed.
+ */
+class PathIndex
+{
+	private final int maxEntries;
+
+	private final boolean windowsPaths;
+
+	private final char separator;
+
+	// Original paths by key, sorted
+	private final TreeMap<String, String> paths = new TreeMap<>();
+
+	// The same keys, access-ordered, so iteration starts at the least recently seen directory
+	private final LinkedHashMap<String, Boolean> recentlySeen = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Creates a new PathIndex with the limit from the system properties.
+	 */
+	PathIndex()
+	{
+		this(Integer.getInteger("jrec.path.index.maxEntries", 50_000), File.separatorChar == '\\');
+	}
+
+	/**
+	 * Creates a new PathIndex.
+	 *
+	 * @param maxEntries   The maximum number of paths to keep
+	 * @param windowsPaths Whether paths are case-insensitive and separated by '\' or '/', or else separated by '/'
+	 */
+	PathIndex(int maxEntries, boolean windowsPaths)
+	{
+		this.maxEntries = maxEntries;
+		this.windowsPaths = windowsPaths;
+		this.separator = windowsPaths ? '\\' : '/';
+	}
+
+	/**
+	 * Adds directories to the index.
+	 *
+	 * @param directories The directories
+	 */
+	synchronized void addAll(Collection<File> directories)
+	{
+		for (File directory : directories)
+		{
+			add(directory);
+		}
+	}
+
+	/**
+	 * Adds a directory to the index, or marks it as recently seen if it is indexed already.
+	 *
+	 * @param directory The directory
+	 */
+	synchronized void add(File directory)
+	{
+		if (maxEntries <= 0)
+		{
+			return;
+		}
+		String path = directory.getPath();
+		String key = key(path);
+		paths.put(key, path);
+		if (recentlySeen.put(key, Boolean.TRUE) == null)
+		{
+			Iterator<String> eldest = recentlySeen.keySet().iterator();
+			while (recentlySeen.size() > maxEntries)
+			{
+				paths.remove(eldest.next());
+				eldest.remove();
+			}
+		}
+	}
+
+	/**
+	 * Gets indexed directories whose path starts with a prefix, nearest first.
+	 *
+	 * @param prefix     The typed path
+	 * @param maxResults The maximum number of paths to return
+	 * @return The paths, not including the prefix itself
+	 */
+	synchronized List<String> complete(String prefix, int maxResults)
+	{
+		String key = key(prefix);
+		NavigableMap<String, String> matches = paths.subMap(key, false, key + Character.MAX_VALUE, false);
+
+		// One pass per depth; a deeper key skips the rest of its subtree, so a pass only visits the keys up to its depth
+		List<String> completions = new ArrayList<>();
+		boolean deeper = true;
+		for (int depth = 0; deeper && completions.size() < maxResults; depth++)
+		{
+			deeper = false;
+			Map.Entry<String, String> match = matches.firstEntry();
+			while (match != null && completions.size() < maxResults)
+			{
+				String matchKey = match.getKey();
+				int cut = separatorAfter(matchKey, key.length(), depth);
+				if (cut >= 0)
+				{
+					deeper = true;
+					match = matches.higherEntry(matchKey.substring(0, cut + 1) + Character.MAX_VALUE);
+				} else
+				{
+					if (depth == 0 || separatorAfter(matchKey, key.length(), depth - 1) >= 0)
+					{
+						completions.add(match.getValue());
+					}
+					match = matches.higherEntry(matchKey);
+				}
+			}
+		}
+		return completions;
+	}
+
+	/**
+	 * Finds the separator that ends the given number of path segments after the prefix, ignoring a trailing one.
+	 *
+	 * @return The index of the separator, or -1 if the key is not that deep
+	 */
+	private int separatorAfter(String key, int from, int depth)
+	{
+		for (int i = from; i < key.length() - 1; i++)
+		{
+			if (key.charAt(i) == separator && depth-- == 0)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private String key(String path)
+	{
+		return windowsPaths ? path.replace('/', '\\').toLowerCase(Locale.ROOT) : path;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,172 @@
+package jll.chongwm.doxis.utility.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules flushes of the pending record buffer on demand instead of at a fixed rate.
+ * A flush runs as soon as the buffer holds maxRecords records or maxBytes bytes, and at the latest
+ * maxAge after the oldest pending record was added. Nothing is scheduled while the buffer is empty.
+ * When DynamoDB throttled requests of a flush the next flush is delayed with a jittered exponential
+ * backoff. Records left unprocessed for other reasons are retried maxAge later, as if newly added.
+ */
+class AdaptiveSyncScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveSyncScheduler.class);
+
+    private static final long BACKOFF_BASE_MS = 1000;
+    private static final long BACKOFF_MAX_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private final ScheduledExecutorService executor;
+    private final PendingRecordBuffer buffer;
+    private final Supplier<CompletableFuture<Integer>> flushAction;
+    private final LongSupplier throttledRequests;
+    private final int maxRecords;
+    private final long maxBytes;
+    private final long maxAgeMs;
+
+    private ScheduledFuture<?> scheduledFlush;
+    private long scheduledFlushAtMs;
+    private boolean flushing;
+    private boolean stopped;
+    private int backoffLevel;
+
+    // No flush is scheduled before this time, set by a throttling backoff or a retry of unprocessed records
+    private long notBeforeMs;
+    private long throttledBeforeFlush;
+
+    /**
+     * Creates a new AdaptiveSyncScheduler.
+     *
+     * @param executor Executor the flushes are scheduled on
+     * @param buffer The pending record buffer
+     * @param flushAction Flushes the buffer; completes with the number of records left unprocessed
+     * @param throttledRequests Supplies the number of throttled requests so far
+     * @param maxRecords Record count that triggers an immediate flush
+     * @param maxBytes Estimated size in bytes that triggers an immediate flush
+     * @param maxAgeMs Maximum time a record waits before it is flushed
+     */
+    AdaptiveSyncScheduler(ScheduledExecutorService executor, PendingRecordBuffer buffer,
+            Supplier<CompletableFuture<Integer>> flushAction, LongSupplier throttledRequests,
+            int maxRecords, long maxBytes, long maxAgeMs) {
+        this.executor = executor;
+        this.buffer = buffer;
+        this.flushAction = flushAction;
+        this.throttledRequests = throttledRequests;
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+        this.maxAgeMs = maxAgeMs;
+        logger.info("Adaptive synchronization at {} records, {} bytes or {} ms, whichever comes first",
+                maxRecords, maxBytes, maxAgeMs);
+    }
+
+    /**
+     * Called after records were added to the buffer. Schedules a flush if one is due.
+     */
+    synchronized void recordsAdded() {
+        if (stopped || flushing || buffer.isEmpty()) {
+            return;
+        }
+        scheduleAt(nextFlushAtMs());
+    }
+
+    /**
+     * Cancels any scheduled flush. A flush that is already running completes normally.
+     */
+    synchronized void stop() {
+        stopped = true;
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+    }
+
+    /**
+     * Computes when the buffer should next be flushed, respecting the backoff and retry delay.
+     */
+    private long nextFlushAtMs() {
+        long now = System.currentTimeMillis();
+        long due = thresholdReached() ? now : now + Math.max(0, maxAgeMs - buffer.oldestAgeMillis());
+        return Math.max(due, notBeforeMs);
+    }
+
+    private boolean thresholdReached() {
+        return buffer.size() >= maxRecords || buffer.estimatedBytes() >= maxBytes;
+    }
+
+    /**
+     * Schedules the flush for the given time unless an earlier one is already scheduled.
+     */
+    private void scheduleAt(long flushAtMs) {
+        if (scheduledFlush != null && !scheduledFlush.isDone()) {
+            if (scheduledFlushAtMs <= flushAtMs) {
+                return;
+            }
+            scheduledFlush.cancel(false);
+        }
+        long delayMs = Math.max(0, flushAtMs - System.currentTimeMillis());
+        scheduledFlushAtMs = flushAtMs;
+        scheduledFlush = executor.schedule(this::runFlush, delayMs, TimeUnit.MILLISECONDS);
+        logger.debug("Scheduled synchronization in {} ms ({} pending records)", delayMs, buffer.size());
+    }
+
+    /**
+     * Runs a flush and schedules the next one when it completes.
+     */
+    private void runFlush() {
+        synchronized (this) {
+            if (stopped || flushing) {
+                return;
+            }
+            flushing = true;
+            scheduledFlush = null;
+            throttledBeforeFlush = throttledRequests.getAsLong();
+        }
+
+        CompletableFuture<Integer> flush;
+        try {
+            flush = flushAction.get();
+        } catch (Exception e) {
+            flush = CompletableFuture.failedFuture(e);
+        }
+        flush.whenComplete(this::flushCompleted);
+    }
+
+    /**
+     * Updates the backoff from the outcome of a flush and schedules the next flush if records are pending.
+     * Only throttling backs off; other unprocessed records are retried after the maximum age.
+     */
+    private synchronized void flushCompleted(Integer unprocessed, Throwable error) {
+        flushing = false;
+
+        if (error != null) {
+            logger.warn("Synchronization failed", error);
+        }
+        if (throttledRequests.getAsLong() > throttledBeforeFlush) {
+            backoffLevel = Math.min(backoffLevel + 1, 16);
+            long cap = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << backoffLevel);
+            long delay = cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+            notBeforeMs = System.currentTimeMillis() + delay;
+            logger.warn("Synchronization was throttled with {} records unprocessed, backing off for {} ms",
+                    unprocessed == null ? "all" : unprocessed, delay);
+        } else if (error != null || (unprocessed != null && unprocessed > 0)) {
+            // The requeued records alone may reach the thresholds, so they wait for the maximum age
+            backoffLevel = 0;
+            notBeforeMs = System.currentTimeMillis() + maxAgeMs;
+        } else {
+            backoffLevel = 0;
+            notBeforeMs = 0;
+        }
+
+        if (!stopped && !buffer.isEmpty()) {
+            scheduleAt(nextFlushAtMs());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,377 @@
+package jll.chongwm.doxis.utility.service;
+
+import jll.chongwm.doxis.utility.model.FileRecord;
+import jll.chongwm.doxis.utility.service.SyncMetrics.Operation;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Non-blocking synchronization and loading engine built on {@link DynamoDbAsyncClient}.
+ * At most maxInFlight requests are outstanding at any time; further requests are queued
+ * without blocking the caller and are started as earlier ones complete.
+ */
+class DynamoDBAsyncEngine implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(DynamoDBAsyncEngine.class);
+
+    private final DynamoDbAsyncClient client;
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final SyncMetrics metrics;
+    private final Queue<Runnable> waitingRequests = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a new DynamoDBAsyncEngine.
+     *
+     * @param client The async DynamoDB client
+     * @param maxInFlight The maximum number of outstanding requests
+     * @param metrics Receives request latencies, retries and consumed capacity
+     */
+    DynamoDBAsyncEngine(DynamoDbAsyncClient client, int maxInFlight, SyncMetrics metrics) {
+        this.client = client;
+        this.metrics = metrics;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.permits = new Semaphore(this.maxInFlight);
+        logger.info("DynamoDBAsyncEngine initialized with at most {} in-flight requests", this.maxInFlight);
+    }
+
+    /**
+     * Synchronizes records with the DynamoDB batch APIs, pipelining all chunks.
+     *
+     * @param records The records to synchronize
+     * @return Future of the records that could not be written
+     */
+    CompletableFuture<List<FileRecord>> synchronizeBatched(List<FileRecord> records) {
+        long startTime = System.nanoTime();
+        List<CompletableFuture<List<FileRecord>>> chunkFutures = new ArrayList<>();
+
+        for (int i = 0; i < records.size(); i += DynamoDBRecordStore.BATCH_GET_MAX_KEYS) {
+            List<FileRecord> chunk = records.subList(i, Math.min(i + DynamoDBRecordStore.BATCH_GET_MAX_KEYS, records.size()));
+            chunkFutures.add(batchGetTimestamps(chunk)
+                    .thenCompose(existingTimestamps -> writeNewer(chunk, existingTimestamps))
+                    .exceptionally(e -> {
+                        metrics.recordThrottling(unwrap(e));
+                        logger.error("Error synchronizing batch of {} records with DynamoDB", chunk.size(), unwrap(e));
+                        return chunk;
+                    }));
+        }
+
+        return collectUnprocessed(chunkFutures).whenComplete((unprocessed, e) -> {
+            if (unprocessed != null) {
+                logger.info("Async batch synchronization of {} records finished in {} ms, {} unprocessed",
+                        records.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), unprocessed.size());
+            }
+        });
+    }
+
+    /**
+     * Synchronizes records with one conditional PutItem per record, pipelining all requests.
+     *
+     * @param records The records to synchronize
+     * @return Future of the records that could not be written
+     */
+    CompletableFuture<List<FileRecord>> synchronizeConditional(List<FileRecord> records) {
+        long startTime = System.nanoTime();
+        List<CompletableFuture<List<FileRecord>>> recordFutures = new ArrayList<>();
+
+        for (FileRecord record : records) {
+            PutItemRequest request = PutItemRequest.builder()
+                    .tableName(DynamoDBRecordStore.TABLE_NAME)
+                    .item(DynamoDBRecordStore.toItem(record))
+                    .conditionExpression("attribute_not_exists(#fp) OR #ts < :ts")
+                    .expressionAttributeNames(Map.of("#fp", DynamoDBRecordStore.KEY_FILEPATH, "#ts", DynamoDBRecordStore.ATTR_TIMESTAMP))
+                    .expressionAttributeValues(Map.of(":ts",
+                            AttributeValue.builder().n(String.valueOf(record.getTimestamp())).build()))
+                    .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                    .build();
+
+            recordFutures.add(limited(timed(Operation.PUT, () -> client.putItem(request)))
+                    .handle((response, e) -> {
+                        if (e == null) {
+                            metrics.recordCapacity(Operation.PUT, DynamoDBRecordStore.capacityUnits(response.consumedCapacity()));
+                            return Collections.<FileRecord>emptyList();
+                        }
+                        if (unwrap(e) instanceof ConditionalCheckFailedException) {
+                            logger.debug("Skipped record update (older timestamp): {}", record.getFilePath());
+                            return Collections.<FileRecord>emptyList();
+                        }
+                        metrics.recordThrottling(unwrap(e));
+                        logger.error("Error syncing record: {}", record.getFilePath(), unwrap(e));
+                        return List.of(record);
+                    }));
+        }
+
+        return collectUnprocessed(recordFutures).whenComplete((unprocessed, e) -> {
+            if (unprocessed != null) {
+                logger.info("Async conditional synchronization of {} records finished in {} ms, {} unprocessed",
+                        records.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), unprocessed.size());
+            }
+        });
+    }
+
+    /**
+     * Loads all records with a parallel segmented Scan, passing each page to the consumer as it arrives.
+     *
+     * @param totalSegments The number of Scan segments
+     * @param pageConsumer Receives the records of each scanned page, possibly concurrently
+     * @return Future of the total number of records loaded
+     */
+    CompletableFuture<Integer> loadAll(int totalSegments, Consumer<List<FileRecord>> pageConsumer) {
+        List<CompletableFuture<Integer>> segmentFutures = new ArrayList<>();
+        for (int segment = 0; segment < totalSegments; segment++) {
+            segmentFutures.add(scanSegment(segment, totalSegments, null, 0, pageConsumer));
+        }
+        return CompletableFuture.allOf(segmentFutures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> segmentFutures.stream().mapToInt(CompletableFuture::join).sum());
+    }
+
+    /**
+     * Scans one page of a segment and chains the request for the next page.
+     */
+    private CompletableFuture<Integer> scanSegment(int segment, int totalSegments,
+            Map<String, AttributeValue> exclusiveStartKey, int loadedSoFar, Consumer<List<FileRecord>> pageConsumer) {
+        ScanRequest.Builder scanRequest = ScanRequest.builder()
+                .tableName(DynamoDBRecordStore.TABLE_NAME)
+                .segment(segment)
+                .totalSegments(totalSegments)
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        if (exclusiveStartKey != null) {
+            scanRequest.exclusiveStartKey(exclusiveStartKey);
+        }
+
+        return limited(timed(Operation.SCAN, () -> client.scan(scanRequest.build()))).thenCompose(response -> {
+            metrics.recordCapacity(Operation.SCAN, DynamoDBRecordStore.capacityUnits(response.consumedCapacity()));
+            List<FileRecord> page = response.items().stream()
+                    .map(DynamoDBRecordStore::fromItem)
+                    .collect(Collectors.toList());
+            if (!page.isEmpty()) {
+                pageConsumer.accept(page);
+            }
+            int loaded = loadedSoFar + page.size();
+
+            if (response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()) {
+                return scanSegment(segment, totalSegments, response.lastEvaluatedKey(), loaded, pageConsumer);
+            }
+            logger.debug("Async scan segment {}/{} loaded {} records", segment, totalSegments, loaded);
+            return CompletableFuture.completedFuture(loaded);
+        });
+    }
+
+    /**
+     * Reads the stored timestamps for a chunk of records, retrying UnprocessedKeys.
+     */
+    private CompletableFuture<Map<String, Long>> batchGetTimestamps(List<FileRecord> chunk) {
+        List<Map<String, AttributeValue>> keys = chunk.stream()
+                .map(record -> DynamoDBRecordStore.keyFor(record.getFilePath()))
+                .collect(Collectors.toList());
+
+        Map<String, KeysAndAttributes> requestItems = new HashMap<>();
+        requestItems.put(DynamoDBRecordStore.TABLE_NAME, KeysAndAttributes.builder()
+                .keys(keys)
+                .projectionExpression("#fp, #ts")
+                .expressionAttributeNames(Map.of("#fp", DynamoDBRecordStore.KEY_FILEPATH, "#ts", DynamoDBRecordStore.ATTR_TIMESTAMP))
+                .build());
+
+        return batchGet(requestItems, new HashMap<>(), 0);
+    }
+
+    /**
+     * Issues one BatchGetItem attempt and chains a retry for any UnprocessedKeys.
+     */
+    private CompletableFuture<Map<String, Long>> batchGet(Map<String, KeysAndAttributes> requestItems,
+            Map<String, Long> timestamps, int attempt) {
+        if (attempt > DynamoDBRecordStore.BATCH_MAX_RETRIES) {
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "UnprocessedKeys remaining after " + DynamoDBRecordStore.BATCH_MAX_RETRIES + " retries"));
+        }
+
+        return delayed(attempt, timed(Operation.GET, () -> client.batchGetItem(BatchGetItemRequest.builder()
+                .requestItems(requestItems)
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                .build())))
+                .thenCompose(response -> {
+                    metrics.recordCapacity(Operation.GET, DynamoDBRecordStore.capacityUnits(response.consumedCapacity()));
+                    for (Map<String, AttributeValue> item : response.responses().getOrDefault(DynamoDBRecordStore.TABLE_NAME, List.of())) {
+                        timestamps.put(item.get(DynamoDBRecordStore.KEY_FILEPATH).s(),
+                                Long.parseLong(item.get(DynamoDBRecordStore.ATTR_TIMESTAMP).n()));
+                    }
+                    if (response.hasUnprocessedKeys() && !response.unprocessedKeys().isEmpty()) {
+                        return batchGet(response.unprocessedKeys(), timestamps, attempt + 1);
+                    }
+                    return CompletableFuture.completedFuture(timestamps);
+                });
+    }
+
+    /**
+     * Writes the records of a chunk that are newer than the stored ones.
+     */
+    private CompletableFuture<List<FileRecord>> writeNewer(List<FileRecord> chunk, Map<String, Long> existingTimestamps) {
+        List<FileRecord> recordsToWrite = chunk.stream()
+                .filter(record -> {
+                    Long existingTimestamp = existingTimestamps.get(record.getFilePath());
+                    return existingTimestamp == null || record.getTimestamp() > existingTimestamp;
+                })
+                .collect(Collectors.toList());
+
+        List<CompletableFuture<List<FileRecord>>> writeFutures = new ArrayList<>();
+        for (int i = 0; i < recordsToWrite.size(); i += DynamoDBRecordStore.BATCH_WRITE_MAX_ITEMS) {
+            List<FileRecord> writeChunk = recordsToWrite.subList(i,
+                    Math.min(i + DynamoDBRecordStore.BATCH_WRITE_MAX_ITEMS, recordsToWrite.size()));
+
+            Map<String, List<WriteRequest>> requestItems = new HashMap<>();
+            requestItems.put(DynamoDBRecordStore.TABLE_NAME, writeChunk.stream()
+                    .map(record -> WriteRequest.builder()
+                            .putRequest(PutRequest.builder().item(DynamoDBRecordStore.toItem(record)).build())
+                            .build())
+                    .collect(Collectors.toList()));
+
+            writeFutures.add(batchWrite(requestItems, 0).exceptionally(e -> {
+                metrics.recordThrottling(unwrap(e));
+                logger.error("Error writing batch of {} records to DynamoDB", writeChunk.size(), unwrap(e));
+                return writeChunk;
+            }));
+        }
+        return collectUnprocessed(writeFutures);
+    }
+
+    /**
+     * Issues one BatchWriteItem attempt and chains a retry for any UnprocessedItems.
+     */
+    private CompletableFuture<List<FileRecord>> batchWrite(Map<String, List<WriteRequest>> requestItems, int attempt) {
+        if (attempt > DynamoDBRecordStore.BATCH_MAX_RETRIES) {
+            logger.warn("UnprocessedItems remaining after {} retries", DynamoDBRecordStore.BATCH_MAX_RETRIES);
+            return CompletableFuture.completedFuture(requestItems.get(DynamoDBRecordStore.TABLE_NAME).stream()
+                    .map(request -> DynamoDBRecordStore.fromItem(request.putRequest().item()))
+                    .collect(Collectors.toList()));
+        }
+
+        return delayed(attempt, timed(Operation.PUT, () -> client.batchWriteItem(BatchWriteItemRequest.builder()
+                .requestItems(requestItems)
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                .build())))
+                .thenCompose(response -> {
+                    metrics.recordCapacity(Operation.PUT, DynamoDBRecordStore.capacityUnits(response.consumedCapacity()));
+                    if (response.hasUnprocessedItems() && !response.unprocessedItems().isEmpty()) {
+                        return batchWrite(response.unprocessedItems(), attempt + 1);
+                    }
+                    return CompletableFuture.completedFuture(Collections.<FileRecord>emptyList());
+                });
+    }
+
+    /**
+     * Runs a request after the jittered backoff for the given retry attempt, without blocking a thread.
+     */
+    private <T> CompletableFuture<T> delayed(int attempt, Supplier<CompletableFuture<T>> request) {
+        if (attempt == 0) {
+            return limited(request);
+        }
+        metrics.recordRetry();
+        Executor delay = CompletableFuture.delayedExecutor(DynamoDBRecordStore.backoffDelayMs(attempt), TimeUnit.MILLISECONDS);
+        return CompletableFuture.supplyAsync(() -> null, delay).thenCompose(v -> limited(request));
+    }
+
+    /**
+     * Wraps a request so that its latency is recorded from the moment it is started,
+     * excluding the time it waited for an in-flight permit.
+     */
+    private <T> Supplier<CompletableFuture<T>> timed(Operation operation, Supplier<CompletableFuture<T>> request) {
+        return () -> {
+            long startTime = System.nanoTime();
+            return request.get().whenComplete((response, e) -> metrics.recordLatency(operation, startTime));
+        };
+    }
+
+    /**
+     * Starts a request once an in-flight permit is available. Never blocks the calling thread.
+     *
+     * @param request Starts the request
+     * @return Future completed with the request's result
+     */
+    private <T> CompletableFuture<T> limited(Supplier<CompletableFuture<T>> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<T> call;
+            try {
+                call = request.get();
+            } catch (Exception e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            call.whenComplete((value, e) -> {
+                permits.release();
+                startWaitingRequests();
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+
+        waitingRequests.add(start);
+        startWaitingRequests();
+        return result;
+    }
+
+    /**
+     * Starts queued requests while permits are available.
+     */
+    private void startWaitingRequests() {
+        while (!waitingRequests.isEmpty() && permits.tryAcquire()) {
+            Runnable start = waitingRequests.poll();
+            if (start == null) {
+                permits.release();
+                return;
+            }
+            start.run();
+        }
+    }
+
+    /**
+     * Combines futures of unprocessed records into one list.
+     */
+    private static CompletableFuture<List<FileRecord>> collectUnprocessed(List<CompletableFuture<List<FileRecord>>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> futures.stream()
+                        .flatMap(future -> future.join().stream())
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Unwraps the cause of a CompletionException.
+     */
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /**
+     * Gets the number of requests currently in flight.
+     *
+     * @return The number of outstanding requests
+     */
+    int getInFlightCount() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,991 @@
+package jll.chongwm.doxis.utility.service;
+
+import jll.chongwm.doxis.utility.model.FileRecord;
+import jll.chongwm.doxis.utility.service.SyncMetrics.Operation;
+import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.io.File;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Record store backed by an Amazon DynamoDB table shared by all clients.
+ */
+class DynamoDBRecordStore implements RecordStore {
+    private static final Logger logger = LoggerFactory.getLogger(DynamoDBRecordStore.class);
+    
+    static final String TABLE_NAME = "JRECFilePathPickerRecords";
+    static final String KEY_FILEPATH = "filePath";
+    static final String ATTR_TIMESTAMP = "timestamp";
+    private static final String ATTR_USERNAME = "username";
+    private static final String ATTR_SELECTED = "selected";
+    private static final String ATTR_PARENT_DIR = "parentDir";
+    private static final String ATTR_FILE_NAME = "fileName";
+    private static final String ATTR_UPDATE_DAY = "updateDay";
+    private static final String ATTR_UPDATE_EPOCH = "updateEpoch";
+    
+    // Global secondary index for directory-scoped queries (parentDir -> fileName)
+    private static final String INDEX_PARENT_DIR = "ParentDirIndex";
+    
+    // Global secondary index for delta sync (UTC day of the write and shard -> write time in epoch milliseconds)
+    private static final String INDEX_UPDATE_EPOCH = "UpdateEpochIndex";
+    
+    // Index partitions per day; all clients sharing the table must use the same number
+    static final int UPDATE_DAY_SHARDS = 4;
+    
+    // DynamoDB batch API limits
+    static final int BATCH_GET_MAX_KEYS = 100;
+    static final int BATCH_WRITE_MAX_ITEMS = 25;
+    
+    // Retry settings for UnprocessedKeys / UnprocessedItems
+    static final int BATCH_MAX_RETRIES = 8;
+    private static final long BATCH_RETRY_BASE_DELAY_MS = 50;
+    private static final long BATCH_RETRY_MAX_DELAY_MS = 5000;
+    
+    // Default number of parallel Scan segments
+    private static final int DEFAULT_SCAN_SEGMENTS = Runtime.getRuntime().availableProcessors();
+    
+    // Default cap on outstanding requests for the async client
+    private static final int DEFAULT_MAX_IN_FLIGHT = 16;
+    
+    /**
+     * Strategy used to write records, selected with the jrec.sync.mode system property.
+     */
+    enum SyncMode {
+        /** BatchGetItem timestamps, then BatchWriteItem newer records. Fewest requests for large flushes. */
+        BATCH,
+        /** One conditional PutItem per record. Last-writer-wins is enforced by DynamoDB, so concurrent pickers cannot race. */
+        CONDITIONAL
+    }
+    
+    private final SyncMode syncMode;
+    private final int scanSegments;
+    private final DynamoDbClient dynamoDbClient;
+    private final DynamoDBAsyncEngine asyncEngine;
+    private final SyncMetrics metrics;
+    
+    /**
+     * Connects to DynamoDB and creates or upgrades the table if needed.
+     * 
+     * @param metrics Receives request latencies, retries and consumed capacity
+     */
+    DynamoDBRecordStore(SyncMetrics metrics) {
+        this.metrics = metrics;
+        syncMode = parseSyncMode(System.getProperty("jrec.sync.mode", SyncMode.BATCH.name()));
+        scanSegments = Integer.getInteger("jrec.scan.segments", DEFAULT_SCAN_SEGMENTS);
+        
+        // Initialize the DynamoDB client with default AWS profile and region
+        dynamoDbClient = DynamoDbClient.builder()
+                .region(Region.US_EAST_1)  // Change to your preferred region
+                .credentialsProvider(ProfileCredentialsProvider.create())
+                .build();
+        
+        // Check if table exists, create if not
+        ensureTableExists();
+        
+        if (Boolean.getBoolean("jrec.dynamodb.async")) {
+            int maxInFlight = Integer.getInteger("jrec.dynamodb.maxInFlight", DEFAULT_MAX_IN_FLIGHT);
+            DynamoDbAsyncClient asyncClient = DynamoDbAsyncClient.builder()
+                    .region(Region.US_EAST_1)
+                    .credentialsProvider(ProfileCredentialsProvider.create())
+                    .httpClientBuilder(NettyNioAsyncHttpClient.builder().maxConcurrency(maxInFlight))
+                    .build();
+            asyncEngine = new DynamoDBAsyncEngine(asyncClient, maxInFlight, metrics);
+        } else {
+            asyncEngine = null;
+        }
+        
+        logger.info("DynamoDB record store initialized, sync mode {}", syncMode);
+    }
+    
+    /**
+     * Parses the sync mode property, falling back to {@link SyncMode#BATCH} for unknown values.
+     * 
+     * @param value The property value
+     * @return The sync mode
+     */
+    private static SyncMode parseSyncMode(String value) {
+        try {
+            return SyncMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown jrec.sync.mode '{}', using {}", value, SyncMode.BATCH);
+            return SyncMode.BATCH;
+        }
+    }
+    
+    @Override
+    public String getName() {
+        return "DynamoDB table " + TABLE_NAME;
+    }
+    
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+    
+    @Override
+    public boolean isAsync() {
+        return asyncEngine != null;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * Uses the configured {@link SyncMode}.
+     */
+    @Override
+    public List<FileRecord> write(List<FileRecord> records) {
+        return syncMode == SyncMode.CONDITIONAL
+                ? synchronizeConditional(records)
+                : synchronizeBatched(records);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * With -Djrec.dynamodb.async=true the requests are pipelined over the async client.
+     */
+    @Override
+    public CompletableFuture<List<FileRecord>> writeAsync(List<FileRecord> records) {
+        if (asyncEngine == null) {
+            return RecordStore.super.writeAsync(records);
+        }
+        return syncMode == SyncMode.CONDITIONAL
+                ? asyncEngine.synchronizeConditional(records)
+                : asyncEngine.synchronizeBatched(records);
+    }
+    
+    /**
+     * Ensures that the DynamoDB table exists, creates it if not.
+     */
+    private void ensureTableExists() {
+        try {
+            // Check if table exists
+            TableDescription table = dynamoDbClient.describeTable(req -> req.tableName(TABLE_NAME)).table();
+            logger.info("DynamoDB table '{}' already exists", TABLE_NAME);
+            
+            Set<String> indexNames = table.hasGlobalSecondaryIndexes()
+                    ? table.globalSecondaryIndexes().stream()
+                            .map(GlobalSecondaryIndexDescription::indexName)
+                            .collect(Collectors.toSet())
+                    : Collections.emptySet();
+            // The backfill scans the whole table, so it only runs when asked for and not on every first start
+            if (!indexNames.contains(INDEX_PARENT_DIR)) {
+                addIndex(INDEX_PARENT_DIR, parentDirIndexKeySchema(), parentDirIndexAttributes());
+            }
+            if (Boolean.getBoolean("jrec.migrate.directoryIndex")) {
+                migrateDirectoryIndex();
+            } else if (!indexNames.contains(INDEX_PARENT_DIR)) {
+                logger.warn("Items written before index '{}' existed are not listed by directory; "
+                        + "start once with -Djrec.migrate.directoryIndex=true to backfill them", INDEX_PARENT_DIR);
+            }
+            
+            // Items written before the index existed are not in it; the initial full load still reads them
+            if (!indexNames.contains(INDEX_UPDATE_EPOCH)) {
+                addIndex(INDEX_UPDATE_EPOCH, updateEpochIndexKeySchema(), updateEpochIndexAttributes());
+            }
+        } catch (ResourceNotFoundException e) {
+            // Table doesn't exist, create it
+            logger.info("DynamoDB table '{}' not found, creating...", TABLE_NAME);
+            
+            List<AttributeDefinition> attributeDefinitions = new ArrayList<>();
+            attributeDefinitions.add(AttributeDefinition.builder()
+                    .attributeName(KEY_FILEPATH)
+                    .attributeType(ScalarAttributeType.S)
+                    .build());
+            attributeDefinitions.addAll(parentDirIndexAttributes());
+            attributeDefinitions.addAll(updateEpochIndexAttributes());
+            
+            CreateTableRequest request = CreateTableRequest.builder()
+                .tableName(TABLE_NAME)
+                .keySchema(
+                    KeySchemaElement.builder()
+                        .attributeName(KEY_FILEPATH)
+                        .keyType(KeyType.HASH)
+                        .build()
+                )
+                .attributeDefinitions(attributeDefinitions)
+                .globalSecondaryIndexes(
+                    GlobalSecondaryIndex.builder()
+                        .indexName(INDEX_PARENT_DIR)
+                        .keySchema(parentDirIndexKeySchema())
+                        .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+                        .provisionedThroughput(
+                            ProvisionedThroughput.builder()
+                                .readCapacityUnits(5L)
+                                .writeCapacityUnits(5L)
+                                .build()
+                        )
+                        .build(),
+                    GlobalSecondaryIndex.builder()
+                        .indexName(INDEX_UPDATE_EPOCH)
+                        .keySchema(updateEpochIndexKeySchema())
+                        .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+                        .provisionedThroughput(
+                            ProvisionedThroughput.builder()
+                                .readCapacityUnits(5L)
+                                .writeCapacityUnits(5L)
+                                .build()
+                        )
+                        .build()
+                )
+                .provisionedThroughput(
+                    ProvisionedThroughput.builder()
+                        .readCapacityUnits(5L)
+                        .writeCapacityUnits(5L)
+                        .build()
+                )
+                .build();
+            
+            dynamoDbClient.createTable(request);
+            
+            // Wait for table to be created
+            boolean tableCreated = false;
+            int attempts = 0;
+            while (!tableCreated && attempts < 10) {
+                try {
+                    Thread.sleep(1000);
+                    TableDescription tableDesc = dynamoDbClient.describeTable(
+                            req -> req.tableName(TABLE_NAME)).table();
+                    tableCreated = "ACTIVE".equals(tableDesc.tableStatus());
+                    attempts++;
+                } catch (Exception waitEx) {
+                    logger.warn("Error while waiting for table creation: {}", waitEx.getMessage());
+                    attempts++;
+                }
+            }
+            
+            if (tableCreated) {
+                logger.info("DynamoDB table '{}' created successfully", TABLE_NAME);
+            } else {
+                logger.warn("DynamoDB table '{}' creation may not have completed", TABLE_NAME);
+            }
+        }
+    }
+    
+    /**
+     * Gets the key schema of the parent directory index.
+     * 
+     * @return parentDir as partition key and fileName as sort key
+     */
+    private List<KeySchemaElement> parentDirIndexKeySchema() {
+        return List.of(
+                KeySchemaElement.builder().attributeName(ATTR_PARENT_DIR).keyType(KeyType.HASH).build(),
+                KeySchemaElement.builder().attributeName(ATTR_FILE_NAME).keyType(KeyType.RANGE).build());
+    }
+    
+    /**
+     * Gets the attribute definitions of the parent directory index keys.
+     * 
+     * @return The parentDir and fileName definitions
+     */
+    private List<AttributeDefinition> parentDirIndexAttributes() {
+        return List.of(
+                AttributeDefinition.builder().attributeName(ATTR_PARENT_DIR).attributeType(ScalarAttributeType.S).build(),
+                AttributeDefinition.builder().attributeName(ATTR_FILE_NAME).attributeType(ScalarAttributeType.S).build());
+    }
+    
+    /**
+     * Gets the key schema of the update epoch index. All writes of a day would go to the same index partition,
+     * so the day is split into {@link #UPDATE_DAY_SHARDS} partitions by path. A delta pull queries every shard
+     * of the days since its last pull.
+     * 
+     * @return updateDay as partition key and updateEpoch as sort key
+     */
+    private List<KeySchemaElement> updateEpochIndexKeySchema() {
+        return List.of(
+                KeySchemaElement.builder().attributeName(ATTR_UPDATE_DAY).keyType(KeyType.HASH).build(),
+                KeySchemaElement.builder().attributeName(ATTR_UPDATE_EPOCH).keyType(KeyType.RANGE).build());
+    }
+    
+    /**
+     * Gets the attribute definitions of the update epoch index keys.
+     * 
+     * @return The updateDay and updateEpoch definitions
+     */
+    private List<AttributeDefinition> updateEpochIndexAttributes() {
+        return List.of(
+                AttributeDefinition.builder().attributeName(ATTR_UPDATE_DAY).attributeType(ScalarAttributeType.S).build(),
+                AttributeDefinition.builder().attributeName(ATTR_UPDATE_EPOCH).attributeType(ScalarAttributeType.N).build());
+    }
+    
+    /**
+     * Adds a global secondary index to a table that was created before the index existed.
+     * DynamoDB builds the index in the background; queries fail until it is ACTIVE.
+     * Only one index can be added at a time, so a second missing index is added on a later start.
+     * 
+     * @param indexName The index name
+     * @param keySchema The index key schema
+     * @param attributeDefinitions The definitions of the index key attributes
+     */
+    private void addIndex(String indexName, List<KeySchemaElement> keySchema, List<AttributeDefinition> attributeDefinitions) {
+        logger.info("Adding index '{}' to DynamoDB table '{}'", indexName, TABLE_NAME);
+        try {
+            dynamoDbClient.updateTable(UpdateTableRequest.builder()
+                    .tableName(TABLE_NAME)
+                    .attributeDefinitions(attributeDefinitions)
+                    .globalSecondaryIndexUpdates(GlobalSecondaryIndexUpdate.builder()
+                            .create(CreateGlobalSecondaryIndexAction.builder()
+                                    .indexName(indexName)
+                                    .keySchema(keySchema)
+                                    .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+                                    .provisionedThroughput(ProvisionedThroughput.builder()
+                                            .readCapacityUnits(5L)
+                                            .writeCapacityUnits(5L)
+                                            .build())
+                                    .build())
+                            .build())
+                    .build());
+        } catch (ResourceInUseException | LimitExceededException e) {
+            logger.warn("DynamoDB table '{}' is being updated, index '{}' will be added on the next start", TABLE_NAME, indexName);
+        } catch (Exception e) {
+            logger.error("Failed to add index '{}' to DynamoDB table '{}'", indexName, TABLE_NAME, e);
+        }
+    }
+    
+    /**
+     * Backfills the parentDir and fileName attributes on items written before the parent directory index existed,
+     * so that they are returned by {@link #loadDirectory(String)}. Scans the whole table, so it only runs with
+     * -Djrec.migrate.directoryIndex=true. Safe to run more than once.
+     * 
+     * @return The number of migrated items
+     */
+    int migrateDirectoryIndex() {
+        logger.info("Migrating DynamoDB items to the '{}' key design", INDEX_PARENT_DIR);
+        int migrated = 0;
+        Map<String, AttributeValue> exclusiveStartKey = null;
+        do {
+            ScanRequest.Builder scanRequest = ScanRequest.builder()
+                    .tableName(TABLE_NAME)
+                    .projectionExpression("#fp")
+                    .filterExpression("attribute_not_exists(#pd)")
+                    .expressionAttributeNames(Map.of("#fp", KEY_FILEPATH, "#pd", ATTR_PARENT_DIR));
+            if (exclusiveStartKey != null) {
+                scanRequest.exclusiveStartKey(exclusiveStartKey);
+            }
+            
+            ScanResponse response = dynamoDbClient.scan(scanRequest.build());
+            for (Map<String, AttributeValue> item : response.items()) {
+                String filePath = item.get(KEY_FILEPATH).s();
+                File file = new File(filePath);
+                if (file.getParent() == null) {
+                    continue;
+                }
+                try {
+                    dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                            .tableName(TABLE_NAME)
+                            .key(keyFor(filePath))
+                            .updateExpression("SET #pd = :pd, #fn = :fn")
+                            .conditionExpression("attribute_exists(#fp)")
+                            .expressionAttributeNames(Map.of("#fp", KEY_FILEPATH, "#pd", ATTR_PARENT_DIR, "#fn", ATTR_FILE_NAME))
+                            .expressionAttributeValues(Map.of(
+                                    ":pd", AttributeValue.builder().s(file.getParent()).build(),
+                                    ":fn", AttributeValue.builder().s(file.getName()).build()))
+                            .build());
+                    migrated++;
+                } catch (ConditionalCheckFailedException e) {
+                    logger.debug("Item deleted during migration: {}", filePath);
+                } catch (Exception e) {
+                    logger.error("Error migrating item: {}", filePath, e);
+                }
+            }
+            
+            exclusiveStartKey = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+        } while (exclusiveStartKey != null && !exclusiveStartKey.isEmpty());
+        
+        logger.info("Migrated {} DynamoDB items to the '{}' key design", migrated, INDEX_PARENT_DIR);
+        return migrated;
+    }
+    
+    /**
+     * Synchronizes the given records using the DynamoDB batch APIs.
+     * Existing timestamps are read with BatchGetItem and newer records are written with BatchWriteItem.
+     * 
+     * @param records The records to synchronize
+     * @return Records that could not be written
+     */
+    private List<FileRecord> synchronizeBatched(List<FileRecord> records) {
+        long startTime = System.nanoTime();
+        List<FileRecord> unprocessed = new ArrayList<>();
+        
+        // Read the stored timestamps in chunks of BATCH_GET_MAX_KEYS
+        Map<String, Long> existingTimestamps = new HashMap<>();
+        Set<String> unreadPaths = new HashSet<>();
+        for (int i = 0; i < records.size(); i += BATCH_GET_MAX_KEYS) {
+            List<FileRecord> chunk = records.subList(i, Math.min(i + BATCH_GET_MAX_KEYS, records.size()));
+            try {
+                existingTimestamps.putAll(batchGetTimestamps(chunk));
+            } catch (Exception e) {
+                metrics.recordThrottling(e);
+                logger.error("Error reading batch of {} records from DynamoDB", chunk.size(), e);
+                unprocessed.addAll(chunk);
+                chunk.forEach(record -> unreadPaths.add(record.getFilePath()));
+            }
+        }
+        
+        // Only write records that don't exist or have a newer timestamp
+        List<FileRecord> recordsToWrite = new ArrayList<>();
+        int skipped = 0;
+        for (FileRecord record : records) {
+            if (unreadPaths.contains(record.getFilePath())) {
+                continue;
+            }
+            Long existingTimestamp = existingTimestamps.get(record.getFilePath());
+            if (existingTimestamp == null || record.getTimestamp() > existingTimestamp) {
+                recordsToWrite.add(record);
+            } else {
+                skipped++;
+                logger.debug("Skipped record update (older timestamp): {}", record.getFilePath());
+            }
+        }
+        
+        // Write in chunks of BATCH_WRITE_MAX_ITEMS
+        for (int i = 0; i < recordsToWrite.size(); i += BATCH_WRITE_MAX_ITEMS) {
+            List<FileRecord> chunk = recordsToWrite.subList(i, Math.min(i + BATCH_WRITE_MAX_ITEMS, recordsToWrite.size()));
+            try {
+                unprocessed.addAll(batchPutRecords(chunk));
+            } catch (Exception e) {
+                metrics.recordThrottling(e);
+                logger.error("Error writing batch of {} records to DynamoDB", chunk.size(), e);
+                unprocessed.addAll(chunk);
+            }
+        }
+        
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        logger.info("Batch synchronization finished in {} ms: {} written, {} skipped, {} unprocessed",
+                elapsedMs, records.size() - skipped - unprocessed.size(), skipped, unprocessed.size());
+        return unprocessed;
+    }
+    
+    /**
+     * Reads the stored timestamps for a chunk of records with BatchGetItem, retrying UnprocessedKeys.
+     * 
+     * @param chunk At most BATCH_GET_MAX_KEYS records
+     * @return Map of file path to stored timestamp, for records that exist in DynamoDB
+     */
+    private Map<String, Long> batchGetTimestamps(List<FileRecord> chunk) {
+        List<Map<String, AttributeValue>> keys = chunk.stream()
+                .map(record -> keyFor(record.getFilePath()))
+                .collect(Collectors.toList());
+        
+        Map<String, KeysAndAttributes> requestItems = new HashMap<>();
+        requestItems.put(TABLE_NAME, KeysAndAttributes.builder()
+                .keys(keys)
+                .projectionExpression("#fp, #ts")
+                .expressionAttributeNames(Map.of("#fp", KEY_FILEPATH, "#ts", ATTR_TIMESTAMP))
+                .build());
+        
+        Map<String, Long> timestamps = new HashMap<>();
+        int attempt = 0;
+        while (!requestItems.isEmpty()) {
+            if (attempt > 0) {
+                if (attempt > BATCH_MAX_RETRIES) {
+                    throw new IllegalStateException("UnprocessedKeys remaining after " + BATCH_MAX_RETRIES + " retries");
+                }
+                metrics.recordRetry();
+                backoff(attempt);
+            }
+            
+            long batchStart = System.nanoTime();
+            BatchGetItemResponse response = dynamoDbClient.batchGetItem(BatchGetItemRequest.builder()
+                    .requestItems(requestItems)
+                    .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                    .build());
+            metrics.recordLatency(Operation.GET, batchStart);
+            metrics.recordCapacity(Operation.GET, capacityUnits(response.consumedCapacity()));
+            
+            for (Map<String, AttributeValue> item : response.responses().getOrDefault(TABLE_NAME, List.of())) {
+                timestamps.put(item.get(KEY_FILEPATH).s(), Long.parseLong(item.get(ATTR_TIMESTAMP).n()));
+            }
+            
+            requestItems = response.hasUnprocessedKeys() ? response.unprocessedKeys() : Map.of();
+            logger.debug("BatchGetItem of {} keys took {} ms ({} unprocessed, attempt {})",
+                    keys.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStart),
+                    requestItems.isEmpty() ? 0 : requestItems.get(TABLE_NAME).keys().size(), attempt);
+            attempt++;
+        }
+        return timestamps;
+    }
+    
+    /**
+     * Writes a chunk of records with BatchWriteItem, retrying UnprocessedItems.
+     * 
+     * @param chunk At most BATCH_WRITE_MAX_ITEMS records
+     * @return Records that were still unprocessed after all retries
+     */
+    private List<FileRecord> batchPutRecords(List<FileRecord> chunk) {
+        List<WriteRequest> writeRequests = chunk.stream()
+                .map(record -> WriteRequest.builder()
+                        .putRequest(PutRequest.builder().item(toItem(record)).build())
+                        .build())
+                .collect(Collectors.toList());
+        
+        Map<String, List<WriteRequest>> requestItems = new HashMap<>();
+        requestItems.put(TABLE_NAME, writeRequests);
+        
+        int attempt = 0;
+        while (!requestItems.isEmpty()) {
+            if (attempt > 0) {
+                if (attempt > BATCH_MAX_RETRIES) {
+                    logger.warn("UnprocessedItems remaining after {} retries", BATCH_MAX_RETRIES);
+                    return requestItems.get(TABLE_NAME).stream()
+                            .map(request -> fromItem(request.putRequest().item()))
+                            .collect(Collectors.toList());
+                }
+                metrics.recordRetry();
+                backoff(attempt);
+            }
+            
+            long batchStart = System.nanoTime();
+            BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+                    .requestItems(requestItems)
+                    .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                    .build());
+            metrics.recordLatency(Operation.PUT, batchStart);
+            metrics.recordCapacity(Operation.PUT, capacityUnits(response.consumedCapacity()));
+            
+            requestItems = response.hasUnprocessedItems() ? response.unprocessedItems() : Map.of();
+            logger.debug("BatchWriteItem of {} items took {} ms ({} unprocessed, attempt {})",
+                    writeRequests.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStart),
+                    requestItems.isEmpty() ? 0 : requestItems.get(TABLE_NAME).size(), attempt);
+            attempt++;
+        }
+        return List.of();
+    }
+    
+    /**
+     * Sleeps for an exponentially growing, fully jittered delay before a batch retry.
+     * 
+     * @param attempt The retry attempt, starting at 1
+     */
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(backoffDelayMs(attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during batch retry backoff", e);
+        }
+    }
+    
+    /**
+     * Computes an exponentially growing, fully jittered batch retry delay.
+     * 
+     * @param attempt The retry attempt, starting at 1
+     * @return The delay in milliseconds
+     */
+    static long backoffDelayMs(int attempt) {
+        long cap = Math.min(BATCH_RETRY_MAX_DELAY_MS, BATCH_RETRY_BASE_DELAY_MS << Math.min(attempt, 16));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+    
+    /**
+     * Gets the capacity units reported by a response.
+     * 
+     * @param consumedCapacity The consumed capacity of a response, may be null
+     * @return The units, or null if none were reported
+     */
+    static Double capacityUnits(ConsumedCapacity consumedCapacity) {
+        return consumedCapacity == null ? null : consumedCapacity.capacityUnits();
+    }
+    
+    /**
+     * Gets the capacity units reported by a batch response.
+     * 
+     * @param consumedCapacity The consumed capacity per table of a batch response
+     * @return The total units, or null if none were reported
+     */
+    static Double capacityUnits(List<ConsumedCapacity> consumedCapacity) {
+        if (consumedCapacity == null || consumedCapacity.isEmpty()) {
+            return null;
+        }
+        double units = 0;
+        for (ConsumedCapacity tableCapacity : consumedCapacity) {
+            Double tableUnits = tableCapacity.capacityUnits();
+            units += tableUnits == null ? 0 : tableUnits;
+        }
+        return units;
+    }
+    
+    /**
+     * Builds the primary key for a file path.
+     * 
+     * @param filePath The canonical file path
+     * @return The DynamoDB key
+     */
+    static Map<String, AttributeValue> keyFor(String filePath) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        key.put(KEY_FILEPATH, AttributeValue.builder().s(filePath).build());
+        return key;
+    }
+    
+    /**
+     * Converts a file record to a DynamoDB item.
+     * 
+     * @param record The file record
+     * @return The DynamoDB item
+     */
+    static Map<String, AttributeValue> toItem(FileRecord record) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put(KEY_FILEPATH, AttributeValue.builder().s(record.getFilePath()).build());
+        item.put(ATTR_TIMESTAMP, AttributeValue.builder().n(String.valueOf(record.getTimestamp())).build());
+        item.put(ATTR_USERNAME, AttributeValue.builder().s(record.getUsername()).build());
+        item.put(ATTR_SELECTED, AttributeValue.builder().bool(record.isSelected()).build());
+        
+        // Directory index attributes
+        File file = new File(record.getFilePath());
+        if (file.getParent() != null) {
+            item.put(ATTR_PARENT_DIR, AttributeValue.builder().s(file.getParent()).build());
+            item.put(ATTR_FILE_NAME, AttributeValue.builder().s(file.getName()).build());
+        }
+        
+        // Delta sync attributes: when this item was written, not the file time carried by the record
+        long updateEpoch = System.currentTimeMillis();
+        item.put(ATTR_UPDATE_DAY, AttributeValue.builder()
+                .s(updateDayShard(updateDay(updateEpoch), Math.floorMod(record.getFilePath().hashCode(), UPDATE_DAY_SHARDS)))
+                .build());
+        item.put(ATTR_UPDATE_EPOCH, AttributeValue.builder().n(String.valueOf(updateEpoch)).build());
+        return item;
+    }
+    
+    /**
+     * Gets the update epoch index partition of a write time.
+     * 
+     * @param epochMs The write time in epoch milliseconds
+     * @return The UTC day, formatted as yyyy-MM-dd
+     */
+    static String updateDay(long epochMs) {
+        return Instant.ofEpochMilli(epochMs).atZone(ZoneOffset.UTC).toLocalDate().toString();
+    }
+    
+    /**
+     * Gets the update epoch index partition key of a shard of a day. Shard 0 is the plain day,
+     * which is also the key written by versions before the index was sharded.
+     * 
+     * @param day   The UTC day, formatted as yyyy-MM-dd
+     * @param shard The shard, from 0 to {@link #UPDATE_DAY_SHARDS} - 1
+     * @return The day, followed by #shard for shards other than 0
+     */
+    static String updateDayShard(String day, int shard) {
+        return shard == 0 ? day : day + "#" + shard;
+    }
+    
+    /**
+     * Converts a DynamoDB item to a file record.
+     * 
+     * @param item The DynamoDB item
+     * @return The file record
+     */
+    static FileRecord fromItem(Map<String, AttributeValue> item) {
+        String filePath = item.get(KEY_FILEPATH).s();
+        long timestamp = Long.parseLong(item.get(ATTR_TIMESTAMP).n());
+        String username = item.get(ATTR_USERNAME).s();
+        boolean selected = item.get(ATTR_SELECTED).bool();
+        return new FileRecord(filePath, timestamp, username, selected);
+    }
+    
+    /**
+     * Synchronizes the given records with one conditional PutItem per record.
+     * A record that lost the last-writer-wins check is stale and is not retried.
+     * 
+     * @param records The records to synchronize
+     * @return Records that could not be written
+     */
+    private List<FileRecord> synchronizeConditional(List<FileRecord> records) {
+        long startTime = System.nanoTime();
+        List<FileRecord> unprocessed = new ArrayList<>();
+        int written = 0;
+        int stale = 0;
+        
+        for (FileRecord record : records) {
+            try {
+                if (putRecordIfNewer(record)) {
+                    written++;
+                    logger.debug("Updated record in DynamoDB: {}", record.getFilePath());
+                } else {
+                    stale++;
+                    logger.debug("Skipped record update (older timestamp): {}", record.getFilePath());
+                }
+            } catch (Exception e) {
+                metrics.recordThrottling(e);
+                logger.error("Error syncing record: {}", record.getFilePath(), e);
+                unprocessed.add(record);
+            }
+        }
+        
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        logger.info("Conditional synchronization finished in {} ms: {} written, {} stale, {} unprocessed",
+                elapsedMs, written, stale, unprocessed.size());
+        return unprocessed;
+    }
+    
+    /**
+     * Puts a file record into DynamoDB unless a record with the same or a newer timestamp is already stored.
+     * 
+     * @param record The file record to put
+     * @return true if the record was written, false if the stored record is not older
+     */
+    private boolean putRecordIfNewer(FileRecord record) {
+        long startTime = System.nanoTime();
+        try {
+            PutItemResponse response = dynamoDbClient.putItem(PutItemRequest.builder()
+                    .tableName(TABLE_NAME)
+                    .item(toItem(record))
+                    .conditionExpression("attribute_not_exists(#fp) OR #ts < :ts")
+                    .expressionAttributeNames(Map.of("#fp", KEY_FILEPATH, "#ts", ATTR_TIMESTAMP))
+                    .expressionAttributeValues(Map.of(":ts",
+                            AttributeValue.builder().n(String.valueOf(record.getTimestamp())).build()))
+                    .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                    .build());
+            metrics.recordCapacity(Operation.PUT, capacityUnits(response.consumedCapacity()));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        } finally {
+            metrics.recordLatency(Operation.PUT, startTime);
+        }
+    }
+    
+    @Override
+    public int loadAll(Consumer<List<FileRecord>> pageConsumer) {
+        if (asyncEngine != null) {
+            try {
+                return loadAllAsync(pageConsumer).join();
+            } catch (Exception e) {
+                logger.error("Error loading records from DynamoDB", e);
+                return 0;
+            }
+        }
+        
+        long startTime = System.nanoTime();
+        int totalSegments = Math.max(1, scanSegments);
+        AtomicInteger total = new AtomicInteger();
+        
+        ExecutorService scanExecutor = Executors.newFixedThreadPool(totalSegments);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int segment = 0; segment < totalSegments; segment++) {
+                final int currentSegment = segment;
+                futures.add(scanExecutor.submit(() ->
+                        total.addAndGet(scanSegment(currentSegment, totalSegments, pageConsumer))));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    logger.error("Error loading records from DynamoDB", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Loading records from DynamoDB was interrupted");
+        } finally {
+            scanExecutor.shutdownNow();
+        }
+        
+        logger.info("Loaded {} records from DynamoDB in {} ms using {} scan segments",
+                total.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), totalSegments);
+        return total.get();
+    }
+    
+    /**
+     * {@inheritDoc}
+     * With -Djrec.dynamodb.async=true the segment scans are pipelined over the async client.
+     */
+    @Override
+    public CompletableFuture<Integer> loadAllAsync(Consumer<List<FileRecord>> pageConsumer) {
+        if (asyncEngine == null) {
+            return RecordStore.super.loadAllAsync(pageConsumer);
+        }
+        
+        long startTime = System.nanoTime();
+        int totalSegments = Math.max(1, scanSegments);
+        return asyncEngine.loadAll(totalSegments, pageConsumer).whenComplete((total, e) -> {
+            if (e != null) {
+                logger.error("Error loading records from DynamoDB", e);
+            } else {
+                logger.info("Loaded {} records from DynamoDB in {} ms using {} async scan segments",
+                        total, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), totalSegments);
+            }
+        });
+    }
+    
+    /**
+     * Scans one segment of the table, following LastEvaluatedKey across pages.
+     * 
+     * @param segment The segment to scan
+     * @param totalSegments The total number of segments
+     * @param pageConsumer Receives the records of each scanned page
+     * @return The number of records loaded from this segment
+     */
+    private int scanSegment(int segment, int totalSegments, Consumer<List<FileRecord>> pageConsumer) {
+        int count = 0;
+        Map<String, AttributeValue> exclusiveStartKey = null;
+        do {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            
+            ScanRequest.Builder scanRequest = ScanRequest.builder()
+                    .tableName(TABLE_NAME)
+                    .segment(segment)
+                    .totalSegments(totalSegments)
+                    .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+            if (exclusiveStartKey != null) {
+                scanRequest.exclusiveStartKey(exclusiveStartKey);
+            }
+            
+            long pageStart = System.nanoTime();
+            ScanResponse response = dynamoDbClient.scan(scanRequest.build());
+            metrics.recordLatency(Operation.SCAN, pageStart);
+            metrics.recordCapacity(Operation.SCAN, capacityUnits(response.consumedCapacity()));
+            List<FileRecord> page = new ArrayList<>(response.items().size());
+            for (Map<String, AttributeValue> item : response.items()) {
+                page.add(fromItem(item));
+            }
+            if (!page.isEmpty()) {
+                pageConsumer.accept(page);
+            }
+            count += page.size();
+            
+            exclusiveStartKey = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+        } while (exclusiveStartKey != null && !exclusiveStartKey.isEmpty());
+        
+        logger.debug("Scan segment {}/{} loaded {} records", segment, totalSegments, count);
+        return count;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * Uses the parent directory index, so only the records of that directory are read.
+     */
+    @Override
+    public List<FileRecord> loadDirectory(String directoryPath) {
+        long startTime = System.nanoTime();
+        List<FileRecord> records = new ArrayList<>();
+        try {
+            Map<String, AttributeValue> exclusiveStartKey = null;
+            do {
+                QueryRequest.Builder queryRequest = QueryRequest.builder()
+                        .tableName(TABLE_NAME)
+                        .indexName(INDEX_PARENT_DIR)
+                        .keyConditionExpression("#pd = :pd")
+                        .expressionAttributeNames(Map.of("#pd", ATTR_PARENT_DIR))
+                        .expressionAttributeValues(Map.of(":pd", AttributeValue.builder().s(directoryPath).build()))
+                        .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+                if (exclusiveStartKey != null) {
+                    queryRequest.exclusiveStartKey(exclusiveStartKey);
+                }
+                
+                long pageStart = System.nanoTime();
+                QueryResponse response = dynamoDbClient.query(queryRequest.build());
+                metrics.recordLatency(Operation.QUERY, pageStart);
+                metrics.recordCapacity(Operation.QUERY, capacityUnits(response.consumedCapacity()));
+                for (Map<String, AttributeValue> item : response.items()) {
+                    records.add(fromItem(item));
+                }
+                
+                exclusiveStartKey = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+            } while (exclusiveStartKey != null && !exclusiveStartKey.isEmpty());
+        } catch (Exception e) {
+            logger.error("Error loading records in directory from DynamoDB: {}", directoryPath, e);
+        }
+        
+        logger.debug("Loaded {} records in {} from DynamoDB in {} ms", records.size(), directoryPath,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        return records;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * Uses the update epoch index. Each UTC day is split into {@link #UPDATE_DAY_SHARDS} index partitions, so one
+     * query is made per shard and day from the given time until today. The shards of a day are read one after the
+     * other, so the returned time only advances when all shards of a day are read, and not past the time the first
+     * of them was queried; an item written to a shard read earlier is then still found by the next pull. On an error
+     * the returned time still covers everything passed on, some records may be passed on again.
+     */
+    @Override
+    public long loadChangedSince(long sinceEpochMs, Consumer<List<FileRecord>> pageConsumer) {
+        long startTime = System.nanoTime();
+        long latestEpoch = sinceEpochMs;
+        int count = 0;
+        try {
+            LocalDate today = LocalDate.now(ZoneOffset.UTC);
+            for (LocalDate day = LocalDate.parse(updateDay(sinceEpochMs)); !day.isAfter(today); day = day.plusDays(1)) {
+                long dayQueried = System.currentTimeMillis();
+                long dayLatestEpoch = latestEpoch;
+                for (int shard = 0; shard < UPDATE_DAY_SHARDS; shard++) {
+                    Map<String, AttributeValue> exclusiveStartKey = null;
+                    do {
+                        QueryRequest.Builder queryRequest = QueryRequest.builder()
+                                .tableName(TABLE_NAME)
+                                .indexName(INDEX_UPDATE_EPOCH)
+                                .keyConditionExpression("#ud = :ud AND #ue > :ue")
+                                .expressionAttributeNames(Map.of("#ud", ATTR_UPDATE_DAY, "#ue", ATTR_UPDATE_EPOCH))
+                                .expressionAttributeValues(Map.of(
+                                        ":ud", AttributeValue.builder().s(updateDayShard(day.toString(), shard)).build(),
+                                        ":ue", AttributeValue.builder().n(String.valueOf(sinceEpochMs)).build()))
+                                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+                        if (exclusiveStartKey != null) {
+                            queryRequest.exclusiveStartKey(exclusiveStartKey);
+                        }
+                        
+                        long pageStart = System.nanoTime();
+                        QueryResponse response = dynamoDbClient.query(queryRequest.build());
+                        metrics.recordLatency(Operation.QUERY, pageStart);
+                        metrics.recordCapacity(Operation.QUERY, capacityUnits(response.consumedCapacity()));
+                        List<FileRecord> page = new ArrayList<>(response.items().size());
+                        for (Map<String, AttributeValue> item : response.items()) {
+                            page.add(fromItem(item));
+                            dayLatestEpoch = Math.max(dayLatestEpoch, Long.parseLong(item.get(ATTR_UPDATE_EPOCH).n()));
+                        }
+                        if (!page.isEmpty()) {
+                            pageConsumer.accept(page);
+                        }
+                        count += page.size();
+                        
+                        exclusiveStartKey = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+                    } while (exclusiveStartKey != null && !exclusiveStartKey.isEmpty());
+                }
+                latestEpoch = Math.max(latestEpoch, Math.min(dayLatestEpoch, dayQueried));
+            }
+        } catch (Exception e) {
+            logger.error("Error loading changed records from DynamoDB", e);
+        }
+        
+        logger.debug("Loaded {} records changed since {} from DynamoDB in {} ms", count, Instant.ofEpochMilli(sinceEpochMs),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        return latestEpoch;
+    }
+    
+    @Override
+    public void close() {
+        dynamoDbClient.close();
+        if (asyncEngine != null) {
+            asyncEngine.close();
+        }
+    }
+}
\ No newline at end of file
@@ -1,46 +1,80 @@
 package jll.chongwm.doxis.utility.service;
 
 import jll.chongwm.doxis.utility.model.FileRecord;
-import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.model.*;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Service for interacting with Amazon DynamoDB for file record synchronization.
+ * Service for file record synchronization. Selections are buffered, journaled and flushed to the
+ * {@link RecordStore} selected with -Djrec.record.store: Amazon DynamoDB, or an embedded local store.
  */
 public class DynamoDBService {
     private static final Logger logger = LoggerFactory.getLogger(DynamoDBService.class);
     
-    private static final String TABLE_NAME = "JRECFilePathPickerRecords";
-    private static final String KEY_FILEPATH = "filePath";
-    private static final String ATTR_TIMESTAMP = "timestamp";
-    private static final String ATTR_USERNAME = "username";
-    private static final String ATTR_SELECTED = "selected";
+    // Delta sync: poll interval, and how far each pull reaches back before the high-water mark
+    // to cover clock skew between clients and the eventual consistency of the index
+    private static final long DEFAULT_DELTA_INTERVAL_SECONDS = 30;
+    private static final long DELTA_OVERLAP_MS = 60_000;
+    
+    // Adaptive sync thresholds: flush at this many records or bytes, or when the oldest record reaches this age
+    private static final int DEFAULT_SYNC_MAX_RECORDS = 500;
+    private static final long DEFAULT_SYNC_MAX_BYTES = 256 * 1024;
+    private static final long DEFAULT_SYNC_MAX_AGE_SECONDS = 30;
+    
+    // Local write-behind journal for pending records
+    private static final String DEFAULT_JOURNAL_FILE = System.getProperty("user.home") + "/.jrec/pending-records.journal";
+    private static final long JOURNAL_FORCE_INTERVAL_MS = 1000;
+    
+    // Embedded record store used with -Djrec.record.store=local
+    private static final String DEFAULT_LOCAL_STORE_FILE = System.getProperty("user.home") + "/.jrec/records.log";
     
-    private static final int SYNC_INTERVAL_MINUTES = 5;
+    // Sync metrics: JMX name and default interval of the metrics log summary
+    private static final String METRICS_OBJECT_NAME = "jll.chongwm.doxis.utility:type=SyncMetrics";
+    private static final long DEFAULT_METRICS_LOG_INTERVAL_SECONDS = 300;
     
     // Singleton instance
     private static DynamoDBService instance;
     
     private final boolean isTestMode;
-    private DynamoDbClient dynamoDbClient;
+    private final long deltaIntervalSeconds;
+    private volatile RecordStore recordStore;
+    private final AtomicBoolean initializationStarted = new AtomicBoolean();
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+    private volatile MappedRecordLog journal;
+    private volatile CompletableFuture<Integer> inFlightSync;
+    private final AdaptiveSyncScheduler syncScheduler;
     private final ScheduledExecutorService scheduler;
     private final ReentrantLock syncLock = new ReentrantLock();
-    private final List<FileRecord> pendingRecords = new ArrayList<>();
+    private final PendingRecordBuffer pendingRecords = new PendingRecordBuffer();
+    private final SyncMetrics metrics = new SyncMetrics(pendingRecords::size);
+    private final AtomicLong deltaHighWaterMark = new AtomicLong();
+    private ScheduledFuture<?> deltaSync;
     
     /**
      * Private constructor for singleton
@@ -48,11 +82,44 @@ public class DynamoDBService {
     private DynamoDBService() {
         String testModeProperty = System.getProperty("local.test.mode", "true");
         isTestMode = Boolean.parseBoolean(testModeProperty);
+        deltaIntervalSeconds = Long.getLong("jrec.delta.intervalSeconds", DEFAULT_DELTA_INTERVAL_SECONDS);
         scheduler = Executors.newScheduledThreadPool(1);
+        syncScheduler = new AdaptiveSyncScheduler(scheduler, pendingRecords, this::flushForScheduler,
+                metrics::getThrottledRequests,
+                Integer.getInteger("jrec.sync.maxRecords", DEFAULT_SYNC_MAX_RECORDS),
+                Long.getLong("jrec.sync.maxBytes", DEFAULT_SYNC_MAX_BYTES),
+                TimeUnit.SECONDS.toMillis(Long.getLong("jrec.sync.maxAgeSeconds", DEFAULT_SYNC_MAX_AGE_SECONDS)));
+        registerMetrics();
         logger.debug("POM local.test.mode is "+testModeProperty);
         logger.info("DynamoDBService initialized in {} mode", isTestMode ? "TEST" : "PRODUCTION");
     }
     
+    /**
+     * Registers the sync metrics with the platform MBean server and schedules the metrics log summary
+     * every jrec.metrics.logIntervalSeconds seconds (0 disables it).
+     */
+    private void registerMetrics() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(METRICS_OBJECT_NAME));
+        } catch (JMException e) {
+            logger.warn("Failed to register sync metrics with JMX", e);
+        }
+        
+        long logIntervalSeconds = Long.getLong("jrec.metrics.logIntervalSeconds", DEFAULT_METRICS_LOG_INTERVAL_SECONDS);
+        if (logIntervalSeconds > 0) {
+            scheduler.scheduleAtFixedRate(metrics::logSummary, logIntervalSeconds, logIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+    
+    /**
+     * Gets the metrics of the synchronization pipeline.
+     * 
+     * @return The sync metrics
+     */
+    public SyncMetrics getMetrics() {
+        return metrics;
+    }
+    
     /**
      * Gets the singleton instance of the service.
      * 
@@ -66,251 +133,461 @@ public class DynamoDBService {
     }
     
     /**
-     * Initializes the DynamoDB client and schedules synchronization.
+     * Opens the record store and schedules synchronization, blocking until the service is ready.
+     * 
+     * @throws CompletionException If the record store cannot be opened
      */
     public void initialize() {
-        if (!isTestMode) {
-            try {
-                // Initialize the DynamoDB client with default AWS profile and region
-                dynamoDbClient = DynamoDbClient.builder()
-                        .region(Region.US_EAST_1)  // Change to your preferred region
-                        .credentialsProvider(ProfileCredentialsProvider.create())
-                        .build();
-                
-                // Check if table exists, create if not
-                ensureTableExists();
-                
-                logger.info("DynamoDB client initialized successfully");
-            } catch (Exception e) {
-                logger.error("Failed to initialize DynamoDB client", e);
-                throw new RuntimeException("Failed to initialize DynamoDB service", e);
-            }
-        } else {
-            logger.info("Running in test mode, DynamoDB operations will be simulated");
+        initializeAsync().join();
+    }
+    
+    /**
+     * Starts opening the journal and the record store on a background thread. Only the first call has an effect,
+     * so it is safe to call from every component that needs the service. Records added before the store is ready
+     * are buffered and journaled as usual and flushed once it is; loads wait for it.
+     * 
+     * @return Future completed when the record store is ready, or exceptionally if it cannot be opened
+     */
+    public CompletableFuture<Void> initializeAsync() {
+        if (initializationStarted.compareAndSet(false, true)) {
+            Thread initThread = new Thread(this::initializeRecordStore, "jrec-initialize");
+            initThread.setDaemon(true);
+            initThread.start();
         }
+        return ready;
+    }
+    
+    /**
+     * Gets a future that completes when the record store is ready, without starting initialization.
+     * 
+     * @return Future completed when the record store is ready, or exceptionally if it cannot be opened
+     */
+    public CompletableFuture<Void> whenReady() {
+        return ready;
+    }
+    
+    /**
+     * Opens the journal and the record store. Runs on the initialization thread.
+     */
+    private void initializeRecordStore() {
+        long startTime = System.nanoTime();
+        
+        // Recover selections that were not synchronized before the last exit; local, so it is done first
+        openJournal();
         
-        // Schedule periodic synchronization
-        scheduler.scheduleAtFixedRate(
-                this::synchronizeRecords, 
-                SYNC_INTERVAL_MINUTES, 
-                SYNC_INTERVAL_MINUTES, 
-                TimeUnit.MINUTES);
+        try {
+            recordStore = createRecordStore();
+            logger.info("Records are stored in {}, ready after {} ms", recordStore.getName(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            ready.complete(null);
+        } catch (Exception e) {
+            ready.completeExceptionally(e);
+            return;
+        }
         
-        logger.info("Scheduled synchronization every {} minutes", SYNC_INTERVAL_MINUTES);
+        // Flush replayed and early records; later flushes are scheduled as records are added
+        syncScheduler.recordsAdded();
     }
     
     /**
-     * Ensures that the DynamoDB table exists, creates it if not.
+     * Waits for the record store, starting initialization if nobody has yet.
+     * 
+     * @return The record store, or null if it could not be opened
      */
-    private void ensureTableExists() {
-        if (isTestMode) return;
+    private RecordStore awaitRecordStore() {
+        try {
+            initializeAsync().join();
+            return recordStore;
+        } catch (CompletionException | CancellationException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Creates the record store selected with -Djrec.record.store=dynamodb|local.
+     * Without the property, test mode uses the local store and production uses DynamoDB.
+     * The local store file is set with -Djrec.local.store.file.
+     * 
+     * @return The record store
+     */
+    private RecordStore createRecordStore() {
+        String storeType = System.getProperty("jrec.record.store", isTestMode ? "local" : "dynamodb");
+        try {
+            if ("local".equalsIgnoreCase(storeType)) {
+                return new LocalRecordStore(Paths.get(System.getProperty("jrec.local.store.file", DEFAULT_LOCAL_STORE_FILE)), metrics);
+            }
+            if (!"dynamodb".equalsIgnoreCase(storeType)) {
+                logger.warn("Unknown jrec.record.store '{}', using dynamodb", storeType);
+            }
+            return new DynamoDBRecordStore(metrics);
+        } catch (Exception e) {
+            logger.error("Failed to open record store '{}'", storeType, e);
+            throw new RuntimeException("Failed to initialize record store", e);
+        }
+    }
+    
+    /**
+     * Opens the pending record journal and replays it into the pending list.
+     * Disabled with -Djrec.journal.enabled=false; the file is set with -Djrec.journal.file.
+     */
+    private void openJournal() {
+        if (journal != null || !Boolean.parseBoolean(System.getProperty("jrec.journal.enabled", "true"))) {
+            return;
+        }
         
+        Path journalFile = Paths.get(System.getProperty("jrec.journal.file", DEFAULT_JOURNAL_FILE));
         try {
-            // Check if table exists
-            dynamoDbClient.describeTable(req -> req.tableName(TABLE_NAME));
-            logger.info("DynamoDB table '{}' already exists", TABLE_NAME);
-        } catch (ResourceNotFoundException e) {
-            // Table doesn't exist, create it
-            logger.info("DynamoDB table '{}' not found, creating...", TABLE_NAME);
+            MappedRecordLog openedJournal = new MappedRecordLog(journalFile);
             
-            CreateTableRequest request = CreateTableRequest.builder()
-                .tableName(TABLE_NAME)
-                .keySchema(
-                    KeySchemaElement.builder()
-                        .attributeName(KEY_FILEPATH)
-                        .keyType(KeyType.HASH)
-                        .build()
-                )
-                .attributeDefinitions(
-                    AttributeDefinition.builder()
-                        .attributeName(KEY_FILEPATH)
-                        .attributeType(ScalarAttributeType.S)
-                        .build()
-                )
-                .provisionedThroughput(
-                    ProvisionedThroughput.builder()
-                        .readCapacityUnits(5L)
-                        .writeCapacityUnits(5L)
-                        .build()
-                )
-                .build();
+            // Later entries for the same path replace earlier ones; selections made since startup replace them all
+            Map<String, FileRecord> replayed = new LinkedHashMap<>();
+            int entries = openedJournal.replay(record -> replayed.put(record.getFilePath(), record));
+            pendingRecords.requeue(replayed.values());
+            logger.info("Replayed {} pending records ({} journal entries) from {}", replayed.size(), entries, journalFile);
+            journal = openedJournal;
             
-            dynamoDbClient.createTable(request);
+            // Journal the selections made before the journal was open
+            compactJournal();
             
-            // Wait for table to be created
-            boolean tableCreated = false;
-            int attempts = 0;
-            while (!tableCreated && attempts < 10) {
+            // Bound the cost of fsync: the mapping survives a killed process, force() only guards against OS crashes
+            scheduler.scheduleWithFixedDelay(journal::force, JOURNAL_FORCE_INTERVAL_MS, JOURNAL_FORCE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        } catch (IOException e) {
+            logger.error("Failed to open pending record journal {}, selections will not survive a crash", journalFile, e);
+        }
+    }
+    
+    /**
+     * Rewrites the journal with the records that are still pending. Called after each flush,
+     * so records are only dropped from the journal once they have been synchronized.
+     */
+    private void compactJournal() {
+        if (journal == null) {
+            return;
+        }
+        
+        // The snapshot is taken under the journal's monitor, like addRecord's append and put, so records added
+        // later are among the entries the rewrite copies over; the new file is written without holding it
+        try {
+            journal.rewrite(pendingRecords::snapshot);
+            logger.debug("Compacted pending record journal to {} bytes", journal.size());
+        } catch (IOException e) {
+            logger.error("Failed to compact pending record journal", e);
+        }
+    }
+    
+    /**
+     * Adds a file record to the pending list for synchronization, replacing any pending record with the same path.
+     * This is an O(1) upsert that never waits for a running synchronization.
+     * 
+     * @param record The file record to add
+     */
+    public void addRecord(FileRecord record) {
+        MappedRecordLog currentJournal = journal;
+        if (currentJournal == null) {
+            pendingRecords.put(record);
+        } else {
+            synchronized (currentJournal) {
                 try {
-                    Thread.sleep(1000);
-                    TableDescription tableDesc = dynamoDbClient.describeTable(
-                            req -> req.tableName(TABLE_NAME)).table();
-                    tableCreated = "ACTIVE".equals(tableDesc.tableStatus());
-                    attempts++;
-                } catch (Exception waitEx) {
-                    logger.warn("Error while waiting for table creation: {}", waitEx.getMessage());
-                    attempts++;
+                    currentJournal.append(record);
+                } catch (IOException e) {
+                    logger.error("Failed to journal record: {}", record.getFilePath(), e);
                 }
+                pendingRecords.put(record);
             }
-            
-            if (tableCreated) {
-                logger.info("DynamoDB table '{}' created successfully", TABLE_NAME);
-            } else {
-                logger.warn("DynamoDB table '{}' creation may not have completed", TABLE_NAME);
-            }
+        }
+        logger.debug("Added record to pending list: {}", record.getFilePath());
+        
+        // Until the record store is ready there is nothing to flush to; initialization schedules the first flush
+        if (recordStore != null) {
+            syncScheduler.recordsAdded();
         }
     }
     
     /**
-     * Adds a file record to the pending list for synchronization.
+     * Adds many file records to the pending list at once, e.g. for Select All. The records are journaled under
+     * a single lock and a single flush is scheduled for all of them.
      * 
-     * @param record The file record to add
+     * @param records The file records to add
      */
-    public void addRecord(FileRecord record) {
-        syncLock.lock();
-        try {
-            // Remove any existing record with the same path
-            pendingRecords.removeIf(r -> r.getFilePath().equals(record.getFilePath()));
-            pendingRecords.add(record);
-            logger.debug("Added record to pending list: {}", record.getFilePath());
-        } finally {
-            syncLock.unlock();
+    public void addRecords(Collection<FileRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        MappedRecordLog currentJournal = journal;
+        if (currentJournal == null) {
+            records.forEach(pendingRecords::put);
+        } else {
+            synchronized (currentJournal) {
+                for (FileRecord record : records) {
+                    try {
+                        currentJournal.append(record);
+                    } catch (IOException e) {
+                        logger.error("Failed to journal record: {}", record.getFilePath(), e);
+                    }
+                    pendingRecords.put(record);
+                }
+            }
+        }
+        logger.debug("Added {} records to pending list", records.size());
+        
+        if (recordStore != null) {
+            syncScheduler.recordsAdded();
         }
     }
     
     /**
-     * Synchronizes all pending records with DynamoDB.
+     * Synchronizes all pending records with the record store.
+     * Records that are still unprocessed after all retries are kept pending for the next synchronization.
      */
     public void synchronizeRecords() {
+        if (recordStore != null && recordStore.isAsync()) {
+            // Wait for a flush that is already running, then flush whatever is pending now
+            try {
+                CompletableFuture<Integer> running = inFlightSync;
+                if (running != null) {
+                    running.join();
+                }
+                synchronizeRecordsAsync().join();
+            } catch (Exception e) {
+                logger.error("Error during asynchronous synchronization", e);
+            }
+            return;
+        }
+        
+        synchronizePending();
+    }
+    
+    /**
+     * Synchronizes all pending records on the calling thread.
+     * 
+     * @return The number of records that could not be synchronized
+     */
+    private int synchronizePending() {
         if (pendingRecords.isEmpty()) {
             logger.debug("No records to synchronize");
-            return;
+            return 0;
+        }
+        if (recordStore == null) {
+            logger.warn("Record store not initialized, {} records remain pending", pendingRecords.size());
+            return pendingRecords.size();
         }
         
         syncLock.lock();
         try {
-            logger.info("Synchronizing {} records with DynamoDB", pendingRecords.size());
+            long startTime = System.nanoTime();
+            List<FileRecord> recordsToSync = pendingRecords.drain();
+            logger.info("Synchronizing {} records with {}", recordsToSync.size(), recordStore.getName());
             
-            if (!isTestMode) {
-                List<FileRecord> recordsToSync = new ArrayList<>(pendingRecords);
-                
-                for (FileRecord record : recordsToSync) {
-                    try {
-                        // Check if record exists in DynamoDB
-                        FileRecord existingRecord = getRecordFromDynamoDB(record.getFilePath());
-                        
-                        // Only update if the record doesn't exist or has a newer timestamp
-                        if (existingRecord == null || record.getTimestamp() > existingRecord.getTimestamp()) {
-                            putRecordToDynamoDB(record);
-                            logger.debug("Updated record in DynamoDB: {}", record.getFilePath());
-                        } else {
-                            logger.debug("Skipped record update (older timestamp): {}", record.getFilePath());
-                        }
-                    } catch (Exception e) {
-                        logger.error("Error syncing record: {}", record.getFilePath(), e);
-                    }
-                }
-            } else {
-                logger.info("TEST MODE: Simulated synchronization of {} records", pendingRecords.size());
+            List<FileRecord> unprocessed;
+            try {
+                unprocessed = recordStore.write(recordsToSync);
+            } catch (Exception e) {
+                logger.error("Error synchronizing records with {}", recordStore.getName(), e);
+                unprocessed = recordsToSync;
             }
+            requeueUnprocessed(unprocessed);
+            metrics.recordFlush(recordsToSync.size(), unprocessed.size(), startTime);
             
-            pendingRecords.clear();
+            compactJournal();
+            return unprocessed.size();
         } finally {
             syncLock.unlock();
         }
     }
     
     /**
-     * Gets a file record from DynamoDB.
+     * Synchronizes all pending records without blocking the caller. If the record store is async
+     * the requests are pipelined; otherwise the blocking flush runs on the sync scheduler.
+     * If a flush is already running its future is returned and new records wait for the next flush.
      * 
-     * @param filePath The canonical file path
-     * @return The file record or null if not found
+     * @return Future of the number of records that could not be synchronized
      */
-    private FileRecord getRecordFromDynamoDB(String filePath) {
-        if (isTestMode) return null;
+    public CompletableFuture<Integer> synchronizeRecordsAsync() {
+        RecordStore store = recordStore;
+        if (store == null || !store.isAsync()) {
+            return CompletableFuture.supplyAsync(this::synchronizePending, scheduler);
+        }
         
+        syncLock.lock();
         try {
-            Map<String, AttributeValue> key = new HashMap<>();
-            key.put(KEY_FILEPATH, AttributeValue.builder().s(filePath).build());
-            
-            GetItemResponse response = dynamoDbClient.getItem(GetItemRequest.builder()
-                    .tableName(TABLE_NAME)
-                    .key(key)
-                    .build());
-            
-            Map<String, AttributeValue> item = response.item();
-            if (item == null || item.isEmpty()) {
-                return null;
+            CompletableFuture<Integer> running = inFlightSync;
+            if (running != null && !running.isDone()) {
+                return running;
+            }
+            if (pendingRecords.isEmpty()) {
+                logger.debug("No records to synchronize");
+                return CompletableFuture.completedFuture(0);
             }
             
-            long timestamp = Long.parseLong(item.get(ATTR_TIMESTAMP).n());
-            String username = item.get(ATTR_USERNAME).s();
-            boolean selected = Boolean.parseBoolean(item.get(ATTR_SELECTED).bool().toString());
+            long startTime = System.nanoTime();
+            List<FileRecord> recordsToSync = pendingRecords.drain();
+            logger.info("Synchronizing {} records with {} (async)", recordsToSync.size(), store.getName());
             
-            return new FileRecord(filePath, timestamp, username, selected);
+            inFlightSync = store.writeAsync(recordsToSync).thenApply(unprocessed -> {
+                requeueUnprocessed(unprocessed);
+                metrics.recordFlush(recordsToSync.size(), unprocessed.size(), startTime);
+                compactJournal();
+                return unprocessed.size();
+            });
+            return inFlightSync;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+    
+    /**
+     * Puts unprocessed records back into the pending list, unless a newer selection for the same path
+     * was added while the flush was running.
+     * 
+     * @param unprocessed Records that could not be written
+     */
+    private void requeueUnprocessed(List<FileRecord> unprocessed) {
+        if (unprocessed.isEmpty()) {
+            return;
+        }
+        
+        int requeued = pendingRecords.requeue(unprocessed);
+        logger.warn("{} records could not be synchronized and remain pending", requeued);
+    }
+    
+    /**
+     * Flush task run by the adaptive sync scheduler on the scheduler thread.
+     * An async flush is not waited for, so the scheduler thread is never tied up.
+     * 
+     * @return Future of the number of records that could not be synchronized
+     */
+    private CompletableFuture<Integer> flushForScheduler() {
+        RecordStore store = recordStore;
+        if (store != null && store.isAsync()) {
+            return synchronizeRecordsAsync();
+        }
+        return CompletableFuture.completedFuture(synchronizePending());
+    }
+    
+    /**
+     * Loads all file records from the record store.
+     * 
+     * @return List of all file records
+     */
+    public List<FileRecord> loadAllRecords() {
+        List<FileRecord> records = Collections.synchronizedList(new ArrayList<>());
+        loadAllRecords(records::addAll);
+        return new ArrayList<>(records);
+    }
+    
+    /**
+     * Loads all file records from the record store, passing each page to the consumer as it arrives.
+     * The consumer may be called concurrently, e.g. from several DynamoDB Scan segments.
+     * 
+     * @param pageConsumer Receives the records of each page
+     * @return The total number of records loaded
+     */
+    public int loadAllRecords(Consumer<List<FileRecord>> pageConsumer) {
+        RecordStore store = awaitRecordStore();
+        if (store == null) {
+            logger.warn("Record store not available, no records loaded");
+            return 0;
+        }
+        
+        // Changes made while the load runs are picked up by the next delta pull
+        deltaHighWaterMark.set(System.currentTimeMillis());
+        try {
+            return store.loadAll(pageConsumer);
         } catch (Exception e) {
-            logger.error("Error getting record from DynamoDB: {}", filePath, e);
-            return null;
+            logger.error("Error loading records from {}", store.getName(), e);
+            return 0;
         }
     }
     
     /**
-     * Puts a file record into DynamoDB.
+     * Loads all file records without blocking the caller, passing each page to the consumer as it arrives.
+     * 
+     * @param pageConsumer Receives the records of each page, possibly concurrently
+     * @return Future of the total number of records loaded
+     */
+    public CompletableFuture<Integer> loadAllRecordsAsync(Consumer<List<FileRecord>> pageConsumer) {
+        return initializeAsync().thenCompose(v -> {
+            deltaHighWaterMark.set(System.currentTimeMillis());
+            return recordStore.loadAllAsync(pageConsumer);
+        });
+    }
+    
+    /**
+     * Loads the file records whose files are direct children of the given directory.
      * 
-     * @param record The file record to put
+     * @param directoryPath The canonical directory path
+     * @return List of file records in the directory
      */
-    private void putRecordToDynamoDB(FileRecord record) {
-        if (isTestMode) return;
+    public List<FileRecord> loadRecordsInDirectory(String directoryPath) {
+        RecordStore store = awaitRecordStore();
+        if (store == null) {
+            return new ArrayList<>();
+        }
         
         try {
-            Map<String, AttributeValue> item = new HashMap<>();
-            item.put(KEY_FILEPATH, AttributeValue.builder().s(record.getFilePath()).build());
-            item.put(ATTR_TIMESTAMP, AttributeValue.builder().n(String.valueOf(record.getTimestamp())).build());
-            item.put(ATTR_USERNAME, AttributeValue.builder().s(record.getUsername()).build());
-            item.put(ATTR_SELECTED, AttributeValue.builder().bool(record.isSelected()).build());
-            
-            dynamoDbClient.putItem(PutItemRequest.builder()
-                    .tableName(TABLE_NAME)
-                    .item(item)
-                    .build());
+            return store.loadDirectory(directoryPath);
         } catch (Exception e) {
-            logger.error("Error putting record to DynamoDB: {}", record.getFilePath(), e);
+            logger.error("Error loading records in directory from {}: {}", store.getName(), directoryPath, e);
+            return new ArrayList<>();
         }
     }
     
     /**
-     * Loads all file records from DynamoDB.
+     * Loads the records written to the record store after the given time.
      * 
-     * @return List of all file records
+     * @param sinceEpochMs Only records written after this time, in epoch milliseconds, are loaded
+     * @param pageConsumer Receives the records of each page
+     * @return The latest write time seen, or sinceEpochMs if nothing was written since
      */
-    public List<FileRecord> loadAllRecords() {
-        if (isTestMode) {
-            logger.info("TEST MODE: Simulated loading of records from DynamoDB");
-            return new ArrayList<>(pendingRecords);
+    public long loadRecordsChangedSince(long sinceEpochMs, Consumer<List<FileRecord>> pageConsumer) {
+        RecordStore store = awaitRecordStore();
+        return store == null ? sinceEpochMs : store.loadChangedSince(sinceEpochMs, pageConsumer);
+    }
+    
+    /**
+     * Starts pulling the records changed by other clients every jrec.delta.intervalSeconds seconds (0 disables it).
+     * Each pull only reads the records written since the previous one. Records written by this client
+     * come back as well, so the consumer must ignore records that are not newer than what it has.
+     * 
+     * Pulls start once the record store is ready.
+     * 
+     * @param changeConsumer Receives the changed records
+     */
+    public void startDeltaSync(Consumer<List<FileRecord>> changeConsumer) {
+        ready.thenRun(() -> scheduleDeltaSync(changeConsumer));
+    }
+    
+    /**
+     * Schedules the periodic pull of remote changes if the record store is shared.
+     * 
+     * @param changeConsumer Receives the changed records
+     */
+    private synchronized void scheduleDeltaSync(Consumer<List<FileRecord>> changeConsumer) {
+        if (deltaSync != null || deltaIntervalSeconds <= 0 || recordStore == null || !recordStore.isShared()) {
+            return;
         }
         
+        // Without a full load the delta starts now
+        deltaHighWaterMark.compareAndSet(0, System.currentTimeMillis());
+        deltaSync = scheduler.scheduleWithFixedDelay(() -> pullRemoteChanges(changeConsumer),
+                deltaIntervalSeconds, deltaIntervalSeconds, TimeUnit.SECONDS);
+        logger.info("Pulling remote changes every {} seconds", deltaIntervalSeconds);
+    }
+    
+    /**
+     * Pulls the records changed since the high-water mark and advances it.
+     * 
+     * @param changeConsumer Receives the changed records
+     */
+    private void pullRemoteChanges(Consumer<List<FileRecord>> changeConsumer) {
         try {
-            ScanRequest scanRequest = ScanRequest.builder()
-                    .tableName(TABLE_NAME)
-                    .build();
-            
-            ScanResponse response = dynamoDbClient.scan(scanRequest);
-            List<FileRecord> records = new ArrayList<>();
-            
-            for (Map<String, AttributeValue> item : response.items()) {
-                String filePath = item.get(KEY_FILEPATH).s();
-                long timestamp = Long.parseLong(item.get(ATTR_TIMESTAMP).n());
-                String username = item.get(ATTR_USERNAME).s();
-                boolean selected = item.get(ATTR_SELECTED).bool();
-                
-                records.add(new FileRecord(filePath, timestamp, username, selected));
-            }
+            long latestEpoch = loadRecordsChangedSince(deltaHighWaterMark.get() - DELTA_OVERLAP_MS, changeConsumer);
             
-            logger.info("Loaded {} records from DynamoDB", records.size());
-            return records;
+            // Never move past the local clock, so a client whose clock runs ahead cannot hide later writes
+            deltaHighWaterMark.accumulateAndGet(Math.min(latestEpoch, System.currentTimeMillis()), Math::max);
         } catch (Exception e) {
-            logger.error("Error loading records from DynamoDB", e);
-            return new ArrayList<>();
+            // An exception would cancel the periodic pull
+            logger.error("Error pulling remote changes", e);
         }
     }
     
@@ -328,6 +605,7 @@ public class DynamoDBService {
         logger.info("Shutting down DynamoDBService");
         
         // Force final synchronization
+        syncScheduler.stop();
         synchronizeRecords();
         
         // Shutdown scheduler
@@ -341,9 +619,25 @@ public class DynamoDBService {
             scheduler.shutdownNow();
         }
         
-        // Close DynamoDB client
-        if (dynamoDbClient != null && !isTestMode) {
-            dynamoDbClient.close();
+        // Close the record store
+        if (recordStore != null) {
+            recordStore.close();
+        }
+        
+        // Close the journal; anything still pending is replayed on the next start
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.error("Failed to close pending record journal", e);
+            }
+        }
+        
+        metrics.logSummary();
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(METRICS_OBJECT_NAME));
+        } catch (JMException e) {
+            logger.debug("Sync metrics were not registered with JMX");
         }
         
         logger.info("DynamoDBService shutdown complete");
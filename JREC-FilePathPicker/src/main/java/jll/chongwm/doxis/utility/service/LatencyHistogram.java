@@ -0,0 +1,136 @@
+package jll.chongwm.doxis.utility.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the spirit of HdrHistogram.
+ * Each power of two is split into 16 linear sub-buckets, so recorded values are reported
+ * with a relative error of at most 1/16 (about 6%) over the whole range from 1 microsecond to hours.
+ * Recording is a single atomic increment, so it is cheap enough for every request.
+ */
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // Values up to 2^40 microseconds (about 12 days); larger values are clamped into the last bucket
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a latency.
+     *
+     * @param micros The latency in microseconds
+     */
+    void record(long micros) {
+        long value = Math.max(0, micros);
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        totalMicros.add(value);
+        maxMicros.accumulate(value);
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return The count
+     */
+    long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the mean of the recorded values.
+     *
+     * @return The mean in microseconds, or 0 if nothing was recorded
+     */
+    double getMeanMicros() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) totalMicros.sum() / n;
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return The maximum in microseconds
+     */
+    long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    /**
+     * Gets the value at a percentile. The upper bound of the bucket holding the percentile is returned,
+     * so the result never understates the latency.
+     *
+     * @param percentile The percentile, between 0 and 100
+     * @return The value in microseconds, or 0 if nothing was recorded
+     */
+    long getValueAtPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    /**
+     * Clears all recorded values. Values recorded concurrently may be partly kept.
+     */
+    void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        totalMicros.reset();
+        maxMicros.reset();
+    }
+
+    /**
+     * Maps a value to its bucket. Values below 16 get a bucket each; above that the bucket is chosen by
+     * the position of the highest set bit and the next 4 bits.
+     */
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+        if (exponent == MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the largest value that maps to a bucket.
+     */
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (subBucket + 1) * width - 1;
+    }
+}
\ No newline at end of file
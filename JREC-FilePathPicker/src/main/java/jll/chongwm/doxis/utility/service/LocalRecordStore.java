@@ -0,0 +1,182 @@
+package jll.chongwm.doxis.utility.service;
+
+import jll.chongwm.doxis.utility.model.FileRecord;
+import jll.chongwm.doxis.utility.service.SyncMetrics.Operation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Embedded record store for disconnected sites and offline benchmarks.
+ * Records are appended to a memory-mapped {@link MappedRecordLog} and indexed in memory by parent directory,
+ * so directory loads only touch the records of that directory. The log is replayed on open and compacted
+ * once most of its entries have been superseded.
+ */
+class LocalRecordStore implements RecordStore {
+    private static final Logger logger = LoggerFactory.getLogger(LocalRecordStore.class);
+
+    // Records handed to the consumer per page by loadAll
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    // The log is compacted when it holds at least this many entries and more than twice the live records
+    private static final int COMPACT_MIN_ENTRIES = 4096;
+
+    private final Path path;
+    private final MappedRecordLog log;
+    private final SyncMetrics metrics;
+    private final Map<String, Map<String, FileRecord>> recordsByDirectory = new ConcurrentHashMap<>();
+    private int recordCount;
+    private int logEntries;
+
+    /**
+     * Opens or creates the store and loads its records.
+     *
+     * @param path The log file
+     * @param metrics Receives write and load latencies
+     * @throws IOException If the log cannot be opened
+     */
+    LocalRecordStore(Path path, SyncMetrics metrics) throws IOException {
+        this.path = path;
+        this.metrics = metrics;
+        log = new MappedRecordLog(path);
+        synchronized (this) {
+            logEntries = log.replay(this::apply);
+            compactIfNeeded();
+        }
+        logger.info("Local record store {} opened with {} records", path, recordCount);
+    }
+
+    @Override
+    public String getName() {
+        return "local store " + path;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The appended entries are forced to storage before returning.
+     */
+    @Override
+    public synchronized List<FileRecord> write(List<FileRecord> records) {
+        long startTime = System.nanoTime();
+        List<FileRecord> unprocessed = new ArrayList<>();
+        for (FileRecord record : records) {
+            FileRecord stored = directoryOf(record.getFilePath()).get(record.getFilePath());
+            if (stored != null && record.getTimestamp() <= stored.getTimestamp()) {
+                logger.debug("Skipped record update (older timestamp): {}", record.getFilePath());
+                continue;
+            }
+
+            try {
+                log.append(record);
+                logEntries++;
+                apply(record);
+            } catch (IOException e) {
+                logger.error("Error writing record: {}", record.getFilePath(), e);
+                unprocessed.add(record);
+            }
+        }
+        log.force();
+        compactIfNeeded();
+        metrics.recordLatency(Operation.PUT, startTime);
+        return unprocessed;
+    }
+
+    @Override
+    public int loadAll(Consumer<List<FileRecord>> pageConsumer) {
+        long startTime = System.nanoTime();
+        int count = 0;
+        List<FileRecord> page = new ArrayList<>(LOAD_PAGE_SIZE);
+        for (Map<String, FileRecord> directory : recordsByDirectory.values()) {
+            for (FileRecord record : directory.values()) {
+                page.add(record);
+                if (page.size() == LOAD_PAGE_SIZE) {
+                    pageConsumer.accept(page);
+                    count += page.size();
+                    page = new ArrayList<>(LOAD_PAGE_SIZE);
+                }
+            }
+        }
+        if (!page.isEmpty()) {
+            pageConsumer.accept(page);
+            count += page.size();
+        }
+        metrics.recordLatency(Operation.SCAN, startTime);
+        logger.info("Loaded {} records from {}", count, getName());
+        return count;
+    }
+
+    @Override
+    public List<FileRecord> loadDirectory(String directoryPath) {
+        Map<String, FileRecord> directory = recordsByDirectory.get(directoryPath);
+        return directory == null ? new ArrayList<>() : new ArrayList<>(directory.values());
+    }
+
+    /**
+     * {@inheritDoc}
+     * This process is the only writer, so there are never changes it has not seen.
+     */
+    @Override
+    public long loadChangedSince(long sinceEpochMs, Consumer<List<FileRecord>> pageConsumer) {
+        return sinceEpochMs;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            log.close();
+        } catch (IOException e) {
+            logger.error("Failed to close {}", getName(), e);
+        }
+    }
+
+    /**
+     * Applies a record to the in-memory index if it is newer than the indexed one.
+     * Called with the store's monitor held.
+     */
+    private void apply(FileRecord record) {
+        Map<String, FileRecord> directory = directoryOf(record.getFilePath());
+        FileRecord existing = directory.get(record.getFilePath());
+        if (existing == null) {
+            directory.put(record.getFilePath(), record);
+            recordCount++;
+        } else if (record.getTimestamp() > existing.getTimestamp()) {
+            directory.put(record.getFilePath(), record);
+        }
+    }
+
+    /**
+     * Gets the index of the directory containing a file, creating it if needed.
+     */
+    private Map<String, FileRecord> directoryOf(String filePath) {
+        String parent = new File(filePath).getParent();
+        return recordsByDirectory.computeIfAbsent(parent == null ? "" : parent, key -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Rewrites the log with only the live records once superseded entries dominate it.
+     */
+    private void compactIfNeeded() {
+        if (logEntries < COMPACT_MIN_ENTRIES || logEntries <= 2 * recordCount) {
+            return;
+        }
+
+        List<FileRecord> live = new ArrayList<>(recordCount);
+        recordsByDirectory.values().forEach(directory -> live.addAll(directory.values()));
+        try {
+            log.rewrite(() -> live);
+            logger.debug("Compacted {} from {} to {} entries", getName(), logEntries, live.size());
+            logEntries = live.size();
+        } catch (IOException e) {
+            logger.error("Failed to compact {}", getName(), e);
+        }
+    }
+}
\ No newline at end of file
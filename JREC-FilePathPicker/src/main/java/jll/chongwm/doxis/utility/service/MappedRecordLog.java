@@ -0,0 +1,382 @@
+package jll.chongwm.doxis.utility.service;
+
+import jll.chongwm.doxis.utility.model.FileRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only, memory-mapped log of file records.
+ * Appends only copy bytes into the mapping, so a killed process loses nothing that was appended;
+ * {@link #force()} is only needed to survive an operating system crash and can be called sparingly.
+ * <p>
+ * Each entry is laid out as: payload length (int), CRC32 of the payload (int), payload.
+ * The payload holds the timestamp (long), selected flag (byte), and the UTF-8 path and username,
+ * each prefixed with its length (int). A zero length marks the end of the log; replay also stops
+ * at the first entry whose checksum does not match, which discards a torn final write. Every append
+ * writes a new end marker after its entry.
+ * <p>
+ * {@link #rewrite(Supplier)} never touches the live file: the new log is written to a sibling file, forced,
+ * and atomically moved over the original, so a crash at any point leaves either the old or the new log.
+ * Appends can go on while the new log is written; only the swap holds the log's monitor.
+ * <p>
+ * A sibling ".lock" file is locked while the log is open, so two processes never write the same log.
+ */
+class MappedRecordLog implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MappedRecordLog.class);
+
+    private static final int HEADER_BYTES = 8;
+    private static final int INITIAL_CAPACITY = 1024 * 1024;
+    private static final int WRITE_BLOCK_BYTES = 64 * 1024;
+
+    // Windows does not replace a file while it is mapped, and a mapping is otherwise only released when its buffer
+    // is garbage collected. Other platforms replace the file and leave the old mapping to the garbage collector.
+    private static final boolean RELEASE_MAPPING_BEFORE_MOVE = System.getProperty("os.name", "").startsWith("Windows");
+
+    private final Path path;
+    private final Path compactionPath;
+    private final FileChannel lockChannel;
+    private final Object compactionLock = new Object();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int writePosition;
+    private boolean dirty;
+
+    /**
+     * Opens or creates the log file. Call {@link #replay(Consumer)} before appending.
+     *
+     * @param path The log file
+     * @throws IOException If the file cannot be opened or mapped, or is in use by another process
+     */
+    MappedRecordLog(Path path) throws IOException {
+        this.path = path;
+        this.compactionPath = path.resolveSibling(path.getFileName() + ".compact");
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        // The lock is taken on a file of its own, since the log file is replaced by every compaction
+        lockChannel = FileChannel.open(path.resolveSibling(path.getFileName() + ".lock"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("Record log is in use by another process: " + path);
+        }
+
+        try {
+            // Left behind by a compaction that did not complete; the log itself is intact
+            Files.deleteIfExists(compactionPath);
+            open();
+        } catch (IOException e) {
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads every intact entry from the start of the log and positions the log for appending after the last one.
+     *
+     * @param consumer Receives each record in append order
+     * @return The number of records replayed
+     */
+    synchronized int replay(Consumer<FileRecord> consumer) {
+        int position = 0;
+        int count = 0;
+        CRC32 crc = new CRC32();
+
+        while (position + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > buffer.capacity()) {
+                break;
+            }
+
+            ByteBuffer payload = buffer.duplicate();
+            payload.position(position + HEADER_BYTES).limit(position + HEADER_BYTES + length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                logger.warn("Discarding corrupt entry at offset {} of {}", position, path);
+                break;
+            }
+
+            consumer.accept(decode(payload));
+            count++;
+            position += HEADER_BYTES + length;
+        }
+
+        writePosition = position;
+        return count;
+    }
+
+    /**
+     * Appends a record to the log, growing the mapping when needed.
+     *
+     * @param record The record to append
+     * @throws IOException If the mapping cannot be grown
+     */
+    synchronized void append(FileRecord record) throws IOException {
+        byte[] payload = encode(record);
+        int required = writePosition + HEADER_BYTES + payload.length + HEADER_BYTES;
+        if (required > buffer.capacity()) {
+            map(Math.max((long) buffer.capacity() * 2, required));
+        }
+
+        // Payload and checksum first, length last, so a partially written entry is never replayed
+        buffer.putInt(writePosition + 4, checksum(payload));
+        buffer.put(writePosition + HEADER_BYTES, payload);
+        buffer.putInt(writePosition + HEADER_BYTES + payload.length, 0);
+        buffer.putInt(writePosition, payload.length);
+        writePosition += HEADER_BYTES + payload.length;
+        dirty = true;
+    }
+
+    /**
+     * Replaces the content of the log with the live records. The records are written to a sibling file without
+     * holding the log's monitor, so appends are not held up; entries appended meanwhile are copied over, and the
+     * file replaces the log with an atomic move once it is on the storage device.
+     *
+     * @param liveRecords Supplies the records to keep; called with the log's monitor held, so no append
+     *                    comes between the snapshot and the position the copy starts from
+     * @throws IOException If the new log cannot be written or moved; the old log is then kept. On Windows the old
+     *                     log is also kept, without an exception, if its mapping cannot be released
+     */
+    void rewrite(Supplier<? extends Collection<FileRecord>> liveRecords) throws IOException {
+        synchronized (compactionLock) {
+            Collection<FileRecord> records;
+            int copiedPosition;
+            synchronized (this) {
+                records = liveRecords.get();
+                copiedPosition = writePosition;
+            }
+
+            FileChannel compacted = FileChannel.open(compactionPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            try {
+                // Entries are gathered into blocks, so large logs take few write calls
+                ByteBuffer block = ByteBuffer.allocate(WRITE_BLOCK_BYTES);
+                for (FileRecord record : records) {
+                    ByteBuffer entry = entry(record);
+                    if (entry.remaining() > block.remaining()) {
+                        block.flip();
+                        write(compacted, block);
+                        block.clear();
+                    }
+                    if (entry.remaining() > block.capacity()) {
+                        write(compacted, entry);
+                    } else {
+                        block.put(entry);
+                    }
+                }
+                block.flip();
+                write(compacted, block);
+                synchronized (this) {
+                    copiedPosition = copyAppended(compacted, copiedPosition);
+                }
+                compacted.force(true);
+
+                // Usually nothing was appended since the copy, so the swap does not wait for the device
+                synchronized (this) {
+                    if (copyAppended(compacted, copiedPosition) > copiedPosition) {
+                        compacted.force(true);
+                    }
+                    // Closed before the move, which Windows refuses for an open file
+                    compacted.close();
+                    replaceWithCompacted();
+                }
+            } finally {
+                compacted.close();
+            }
+        }
+    }
+
+    /**
+     * Copies the entries appended since a position to the compacted file. Called with the log's monitor held.
+     *
+     * @return The position up to which entries are copied
+     */
+    private int copyAppended(FileChannel compacted, int fromPosition) throws IOException {
+        if (writePosition > fromPosition) {
+            ByteBuffer appended = buffer.duplicate();
+            appended.position(fromPosition).limit(writePosition);
+            write(compacted, appended);
+        }
+        return writePosition;
+    }
+
+    private static void write(FileChannel channel, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /**
+     * Moves the compacted file over the log and maps it. Called with the log's monitor held, so no other
+     * code uses the old mapping while it is released.
+     */
+    private void replaceWithCompacted() throws IOException {
+        force();
+        if (RELEASE_MAPPING_BEFORE_MOVE) {
+            // The move would fail while the old mapping exists; the log still holds every entry, only uncompacted
+            if (!unmap(buffer)) {
+                logger.warn("Keeping {} uncompacted, it cannot be replaced while it is mapped", path);
+                Files.deleteIfExists(compactionPath);
+                return;
+            }
+        }
+        // Not used again, whether released or left to the garbage collector; forced above
+        buffer = null;
+        int previousPosition = writePosition;
+        boolean moved = false;
+        try {
+            channel.close();
+            Files.move(compactionPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            moved = true;
+        } finally {
+            // Either the compacted log or, if the move failed, the old one
+            open();
+            if (!moved) {
+                writePosition = previousPosition;
+            }
+        }
+    }
+
+    /**
+     * Opens and maps the log file. Its size before mapping is the end of the entries of a compacted log;
+     * mapping beyond it fills the file with zeros, which read as the end marker.
+     */
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        map(Math.max(INITIAL_CAPACITY, size));
+        writePosition = (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Flushes appended entries to the storage device if anything changed since the last call.
+     */
+    synchronized void force() {
+        if (dirty) {
+            buffer.force();
+            dirty = false;
+        }
+    }
+
+    /**
+     * Gets the number of bytes used by the log entries.
+     *
+     * @return The size of the log in bytes
+     */
+    synchronized int size() {
+        return writePosition;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        channel.close();
+        lockChannel.close();
+    }
+
+    /**
+     * Maps the file with the given capacity.
+     */
+    private void map(long capacity) throws IOException {
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Record log exceeds maximum size: " + path);
+        }
+        if (buffer != null) {
+            buffer.force();
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    /**
+     * Releases a mapping at once instead of when it is garbage collected, so the file can be replaced on Windows.
+     * The JDK has no public API for this; sun.misc.Unsafe.invokeCleaner from the jdk.unsupported module is looked up
+     * reflectively. The buffer must not be used afterwards if the mapping was released.
+     *
+     * @return true if the mapping was released, false if it is left to the garbage collector
+     */
+    private static boolean unmap(MappedByteBuffer mapping) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(theUnsafe.get(null), mapping);
+            return true;
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            logger.warn("Cannot release a record log mapping, it is released when garbage collected: {}", e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Encodes a record into a complete entry, header included.
+     */
+    private static ByteBuffer entry(FileRecord record) {
+        byte[] payload = encode(record);
+        ByteBuffer entry = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        entry.putInt(payload.length).putInt(checksum(payload)).put(payload);
+        entry.flip();
+        return entry;
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Encodes a record into a payload.
+     */
+    private static byte[] encode(FileRecord record) {
+        byte[] pathBytes = record.getFilePath().getBytes(StandardCharsets.UTF_8);
+        byte[] userBytes = record.getUsername() == null ? new byte[0] : record.getUsername().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(8 + 1 + 4 + pathBytes.length + 4 + userBytes.length);
+        payload.putLong(record.getTimestamp());
+        payload.put((byte) (record.isSelected() ? 1 : 0));
+        payload.putInt(pathBytes.length).put(pathBytes);
+        payload.putInt(userBytes.length).put(userBytes);
+        return payload.array();
+    }
+
+    /**
+     * Decodes a payload into a record.
+     */
+    private static FileRecord decode(ByteBuffer payload) {
+        long timestamp = payload.getLong();
+        boolean selected = payload.get() != 0;
+        byte[] pathBytes = new byte[payload.getInt()];
+        payload.get(pathBytes);
+        byte[] userBytes = new byte[payload.getInt()];
+        payload.get(userBytes);
+        return new FileRecord(new String(pathBytes, StandardCharsets.UTF_8), timestamp,
+                new String(userBytes, StandardCharsets.UTF_8), selected);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,134 @@
+package jll.chongwm.doxis.utility.service;
+
+import jll.chongwm.doxis.utility.model.FileRecord;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Coalescing buffer of records waiting to be synchronized, keyed by canonical path.
+ * Adding a record is an O(1) upsert that replaces any pending record for the same path.
+ * A flush atomically swaps in an empty map and drains the old one, so writers never wait for a running flush.
+ */
+class PendingRecordBuffer {
+    // Approximate per-record overhead on top of the path and username, used for the byte estimate
+    private static final int RECORD_OVERHEAD_BYTES = 32;
+
+    /**
+     * The records added since the last drain, with the statistics used by the sync scheduler.
+     */
+    private static final class Generation {
+        final ConcurrentHashMap<String, FileRecord> records = new ConcurrentHashMap<>();
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicLong firstAddedNanos = new AtomicLong();
+    }
+
+    private final AtomicReference<Generation> current = new AtomicReference<>(new Generation());
+
+    /**
+     * Adds a record, replacing any pending record with the same path.
+     *
+     * @param record The record to add
+     */
+    void put(FileRecord record) {
+        Generation generation = current.get();
+        generation.records.put(record.getFilePath(), record);
+        track(generation, record);
+
+        // A drain may have swapped the map while we were writing to it; make sure the record is not lost.
+        // If a newer record for the path is already in the new map it wins.
+        Generation latest = current.get();
+        if (latest != generation && latest.records.putIfAbsent(record.getFilePath(), record) == null) {
+            track(latest, record);
+        }
+    }
+
+    /**
+     * Removes and returns all pending records.
+     *
+     * @return The drained records
+     */
+    List<FileRecord> drain() {
+        return new ArrayList<>(current.getAndSet(new Generation()).records.values());
+    }
+
+    /**
+     * Puts records that could not be synchronized back into the buffer,
+     * unless a newer record for the same path was added in the meantime.
+     *
+     * @param records The records to requeue
+     * @return The number of records requeued
+     */
+    int requeue(Collection<FileRecord> records) {
+        int requeued = 0;
+        for (FileRecord record : records) {
+            Generation generation = current.get();
+            if (generation.records.putIfAbsent(record.getFilePath(), record) == null) {
+                track(generation, record);
+                requeued++;
+            }
+        }
+        return requeued;
+    }
+
+    /**
+     * Gets a copy of the pending records without removing them.
+     *
+     * @return The pending records
+     */
+    List<FileRecord> snapshot() {
+        return new ArrayList<>(current.get().records.values());
+    }
+
+    /**
+     * Gets the number of pending records.
+     *
+     * @return The number of pending records
+     */
+    int size() {
+        return current.get().records.size();
+    }
+
+    /**
+     * Checks if there are no pending records.
+     *
+     * @return true if the buffer is empty
+     */
+    boolean isEmpty() {
+        return current.get().records.isEmpty();
+    }
+
+    /**
+     * Gets an estimate of the bytes added since the last drain. Replaced records are still counted,
+     * so the estimate errs on the high side.
+     *
+     * @return The estimated size in bytes
+     */
+    long estimatedBytes() {
+        return current.get().bytes.get();
+    }
+
+    /**
+     * Gets the age of the oldest record added since the last drain.
+     *
+     * @return The age in milliseconds, or 0 if the buffer is empty
+     */
+    long oldestAgeMillis() {
+        long firstAdded = current.get().firstAddedNanos.get();
+        return firstAdded == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - firstAdded);
+    }
+
+    /**
+     * Updates the size and age statistics of a generation for an added record.
+     */
+    private static void track(Generation generation, FileRecord record) {
+        int usernameLength = record.getUsername() == null ? 0 : record.getUsername().length();
+        generation.bytes.addAndGet(RECORD_OVERHEAD_BYTES + 2L * (record.getFilePath().length() + usernameLength));
+        generation.firstAddedNanos.compareAndSet(0, System.nanoTime());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package jll.chongwm.doxis.utility.service;
+
+import jll.chongwm.doxis.utility.model.FileRecord;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Backend that persists file records. Every store applies last-writer-wins on the record timestamp:
+ * a record only replaces the stored record for the same path if its timestamp is newer.
+ * <p>
+ * The backend is selected with -Djrec.record.store=dynamodb|local; see {@link DynamoDBService}.
+ */
+public interface RecordStore extends AutoCloseable {
+
+    /**
+     * Gets a description of the store for logging.
+     *
+     * @return The store description
+     */
+    String getName();
+
+    /**
+     * Writes records that are newer than the stored ones. Older records are stale and are dropped.
+     *
+     * @param records The records to write
+     * @return Records that could not be written and should be retried
+     */
+    List<FileRecord> write(List<FileRecord> records);
+
+    /**
+     * Writes records without blocking the caller if the store supports it, see {@link #isAsync()}.
+     * The default implementation writes on the calling thread.
+     *
+     * @param records The records to write
+     * @return Future of the records that could not be written
+     */
+    default CompletableFuture<List<FileRecord>> writeAsync(List<FileRecord> records) {
+        return CompletableFuture.completedFuture(write(records));
+    }
+
+    /**
+     * Loads all records, passing them to the consumer page by page. The consumer may be called concurrently.
+     *
+     * @param pageConsumer Receives the records of each page
+     * @return The total number of records loaded
+     */
+    int loadAll(Consumer<List<FileRecord>> pageConsumer);
+
+    /**
+     * Loads all records without blocking the caller.
+     * The default implementation runs {@link #loadAll(Consumer)} on the common pool.
+     *
+     * @param pageConsumer Receives the records of each page, possibly concurrently
+     * @return Future of the total number of records loaded
+     */
+    default CompletableFuture<Integer> loadAllAsync(Consumer<List<FileRecord>> pageConsumer) {
+        return CompletableFuture.supplyAsync(() -> loadAll(pageConsumer));
+    }
+
+    /**
+     * Loads the records whose files are direct children of the given directory.
+     *
+     * @param directoryPath The canonical directory path
+     * @return List of file records in the directory
+     */
+    List<FileRecord> loadDirectory(String directoryPath);
+
+    /**
+     * Loads the records written to the store after the given time.
+     *
+     * @param sinceEpochMs Only records written after this time, in epoch milliseconds, are loaded
+     * @param pageConsumer Receives the records of each page
+     * @return The latest write time seen, or sinceEpochMs if nothing was written since
+     */
+    long loadChangedSince(long sinceEpochMs, Consumer<List<FileRecord>> pageConsumer);
+
+    /**
+     * Checks if other clients write to this store. Remote changes are only pulled from shared stores.
+     *
+     * @return true if the store is shared
+     */
+    default boolean isShared() {
+        return false;
+    }
+
+    /**
+     * Checks if {@link #writeAsync(List)} and {@link #loadAllAsync(Consumer)} are non-blocking.
+     * Flushes to a blocking store run on the sync scheduler thread.
+     *
+     * @return true if the async operations do not block
+     */
+    default boolean isAsync() {
+        return false;
+    }
+
+    /**
+     * Releases the resources of the store.
+     */
+    @Override
+    void close();
+}
\ No newline at end of file
@@ -0,0 +1,233 @@
+package jll.chongwm.doxis.utility.service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.RequestLimitExceededException;
+
+/**
+ * Metrics of the synchronization pipeline: request latencies per operation, flush counts and throughput,
+ * batch retries, throttled requests and consumed capacity units. Exposed over JMX through {@link SyncMetricsMXBean} and
+ * logged periodically by {@link #logSummary()}, so the provisioned throughput can be sized from real numbers.
+ */
+public class SyncMetrics implements SyncMetricsMXBean {
+    private static final Logger logger = LoggerFactory.getLogger(SyncMetrics.class);
+
+    /**
+     * Record store request types that are timed separately.
+     */
+    enum Operation {
+        GET, PUT, SCAN, QUERY
+    }
+
+    private final IntSupplier pendingRecords;
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder recordsFlushed = new LongAdder();
+    private final LongAdder recordsUnprocessed = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder throttledRequests = new LongAdder();
+    private final DoubleAdder readCapacityUnits = new DoubleAdder();
+    private final DoubleAdder writeCapacityUnits = new DoubleAdder();
+
+    // Totals at the previous summary, used to log rates per interval
+    private long lastSummaryNanos = System.nanoTime();
+    private long lastRecordsFlushed;
+    private double lastReadCapacityUnits;
+    private double lastWriteCapacityUnits;
+
+    /**
+     * Creates a new SyncMetrics.
+     *
+     * @param pendingRecords Supplies the current number of pending records
+     */
+    SyncMetrics(IntSupplier pendingRecords) {
+        this.pendingRecords = pendingRecords;
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Records the latency of a request that started at the given time.
+     *
+     * @param operation The request type
+     * @param startNanos The start time from System.nanoTime()
+     */
+    void recordLatency(Operation operation, long startNanos) {
+        latencies.get(operation).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Records consumed capacity units. Puts consume write capacity, all other operations read capacity.
+     *
+     * @param operation The request type
+     * @param capacityUnits The consumed units; null if the response did not report them
+     */
+    void recordCapacity(Operation operation, Double capacityUnits) {
+        if (capacityUnits == null) {
+            return;
+        }
+        if (operation == Operation.PUT) {
+            writeCapacityUnits.add(capacityUnits);
+        } else {
+            readCapacityUnits.add(capacityUnits);
+        }
+    }
+
+    /**
+     * Records a retried batch request.
+     */
+    void recordRetry() {
+        retries.increment();
+    }
+
+    /**
+     * Records a failed request if DynamoDB rejected it for throttling.
+     *
+     * @param error The error of the request
+     */
+    void recordThrottling(Throwable error) {
+        if (error instanceof ProvisionedThroughputExceededException || error instanceof RequestLimitExceededException) {
+            throttledRequests.increment();
+        }
+    }
+
+    /**
+     * Records a completed flush that started at the given time.
+     *
+     * @param records The number of records flushed
+     * @param unprocessed The number of records that could not be written
+     * @param startNanos The start time from System.nanoTime()
+     */
+    void recordFlush(int records, int unprocessed, long startNanos) {
+        flushes.increment();
+        recordsFlushed.add(records - unprocessed);
+        recordsUnprocessed.add(unprocessed);
+        flushNanos.add(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public int getPendingRecords() {
+        return pendingRecords.getAsInt();
+    }
+
+    @Override
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    @Override
+    public long getRecordsFlushed() {
+        return recordsFlushed.sum();
+    }
+
+    @Override
+    public long getRecordsUnprocessed() {
+        return recordsUnprocessed.sum();
+    }
+
+    @Override
+    public double getFlushThroughputPerSecond() {
+        long nanos = flushNanos.sum();
+        return nanos == 0 ? 0 : recordsFlushed.sum() * 1e9 / nanos;
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getThrottledRequests() {
+        return throttledRequests.sum();
+    }
+
+    @Override
+    public double getConsumedReadCapacityUnits() {
+        return readCapacityUnits.sum();
+    }
+
+    @Override
+    public double getConsumedWriteCapacityUnits() {
+        return writeCapacityUnits.sum();
+    }
+
+    @Override
+    public Map<String, Double> getLatencyMillis() {
+        Map<String, Double> statistics = new LinkedHashMap<>();
+        for (Map.Entry<Operation, LatencyHistogram> entry : latencies.entrySet()) {
+            String prefix = entry.getKey().name().toLowerCase(Locale.ROOT) + ".";
+            LatencyHistogram histogram = entry.getValue();
+            statistics.put(prefix + "count", (double) histogram.getCount());
+            statistics.put(prefix + "mean", histogram.getMeanMicros() / 1000.0);
+            statistics.put(prefix + "p50", histogram.getValueAtPercentile(50) / 1000.0);
+            statistics.put(prefix + "p90", histogram.getValueAtPercentile(90) / 1000.0);
+            statistics.put(prefix + "p99", histogram.getValueAtPercentile(99) / 1000.0);
+            statistics.put(prefix + "p999", histogram.getValueAtPercentile(99.9) / 1000.0);
+            statistics.put(prefix + "max", histogram.getMaxMicros() / 1000.0);
+        }
+        return statistics;
+    }
+
+    @Override
+    public synchronized void reset() {
+        latencies.values().forEach(LatencyHistogram::reset);
+        flushes.reset();
+        recordsFlushed.reset();
+        recordsUnprocessed.reset();
+        flushNanos.reset();
+        retries.reset();
+        throttledRequests.reset();
+        readCapacityUnits.reset();
+        writeCapacityUnits.reset();
+        lastSummaryNanos = System.nanoTime();
+        lastRecordsFlushed = 0;
+        lastReadCapacityUnits = 0;
+        lastWriteCapacityUnits = 0;
+    }
+
+    /**
+     * Logs the rates since the previous summary and the latency percentiles of every operation used so far.
+     */
+    synchronized void logSummary() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-3, (now - lastSummaryNanos) / 1e9);
+        long flushed = getRecordsFlushed();
+        double read = getConsumedReadCapacityUnits();
+        double write = getConsumedWriteCapacityUnits();
+
+        logger.info(String.format(Locale.ROOT,
+                "Sync metrics: %d pending, %.1f records/s flushed (%.0f records/s while flushing), %d unprocessed, "
+                        + "%d retries, %d throttled, %.2f RCU/s, %.2f WCU/s",
+                getPendingRecords(), (flushed - lastRecordsFlushed) / seconds, getFlushThroughputPerSecond(),
+                getRecordsUnprocessed(), getRetries(), getThrottledRequests(), (read - lastReadCapacityUnits) / seconds,
+                (write - lastWriteCapacityUnits) / seconds));
+
+        for (Map.Entry<Operation, LatencyHistogram> entry : latencies.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            if (histogram.getCount() > 0) {
+                logger.info(String.format(Locale.ROOT, "Sync metrics: %s latency ms count=%d p50=%.1f p90=%.1f p99=%.1f max=%.1f",
+                        entry.getKey(), histogram.getCount(),
+                        histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                        histogram.getValueAtPercentile(99) / 1000.0, histogram.getMaxMicros() / 1000.0));
+            }
+        }
+
+        lastSummaryNanos = now;
+        lastRecordsFlushed = flushed;
+        lastReadCapacityUnits = read;
+        lastWriteCapacityUnits = write;
+    }
+}
\ No newline at end of file
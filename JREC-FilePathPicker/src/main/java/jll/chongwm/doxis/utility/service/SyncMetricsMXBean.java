@@ -0,0 +1,85 @@
+package jll.chongwm.doxis.utility.service;
+
+import java.util.Map;
+
+/**
+ * JMX view of the synchronization metrics, registered as jll.chongwm.doxis.utility:type=SyncMetrics.
+ */
+public interface SyncMetricsMXBean {
+
+    /**
+     * Gets the number of records waiting to be synchronized.
+     *
+     * @return The pending record count
+     */
+    int getPendingRecords();
+
+    /**
+     * Gets the number of flushes of the pending records.
+     *
+     * @return The flush count
+     */
+    long getFlushes();
+
+    /**
+     * Gets the number of records written by all flushes, including stale records that were skipped.
+     *
+     * @return The flushed record count
+     */
+    long getRecordsFlushed();
+
+    /**
+     * Gets the number of records that flushes could not write and that were requeued.
+     *
+     * @return The unprocessed record count
+     */
+    long getRecordsUnprocessed();
+
+    /**
+     * Gets the flush throughput while flushes are running.
+     *
+     * @return Records flushed per second of flush time
+     */
+    double getFlushThroughputPerSecond();
+
+    /**
+     * Gets the number of retried batch requests (UnprocessedKeys / UnprocessedItems).
+     *
+     * @return The retry count
+     */
+    long getRetries();
+
+    /**
+     * Gets the number of requests that failed with ProvisionedThroughputExceeded or RequestLimitExceeded.
+     *
+     * @return The throttled request count
+     */
+    long getThrottledRequests();
+
+    /**
+     * Gets the read capacity units consumed by gets, scans and queries.
+     *
+     * @return The consumed read capacity units
+     */
+    double getConsumedReadCapacityUnits();
+
+    /**
+     * Gets the write capacity units consumed by puts.
+     *
+     * @return The consumed write capacity units
+     */
+    double getConsumedWriteCapacityUnits();
+
+    /**
+     * Gets request latency statistics in milliseconds, keyed by operation and statistic,
+     * e.g. put.p99 or scan.max. Statistics are count, mean, p50, p90, p99, p999 and max.
+     *
+     * @return The latency statistics
+     */
+    Map<String, Double> getLatencyMillis();
+
+    /**
+     * Clears all counters and histograms.
+     */
+    void reset();
+}
\ No newline at end of file
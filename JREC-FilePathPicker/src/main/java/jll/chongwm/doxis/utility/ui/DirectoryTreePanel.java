@@ -1,44 +1,60 @@
 package jll.chongwm.doxis.utility.ui;
 
+import jll.chongwm.doxis.utility.model.FileChangeEvent;
+import jll.chongwm.doxis.utility.model.FileListChunk;
 import jll.chongwm.doxis.utility.model.FileSystemModel;
+import jll.chongwm.doxis.utility.utils.IconService;
 import jll.chongwm.doxis.utility.utils.UIUtils;
 
 import javax.swing.*;
-import javax.swing.filechooser.FileSystemView;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeWillExpandListener;
 import javax.swing.tree.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.File;
-import java.util.Enumeration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Panel displaying a tree of directories.
- * Shows only immediate subdirectories of the current root directory.
+ * The root is the current directory; its subdirectories stream in with the directory listing, and deeper levels
+ * are loaded in the background when a node is first expanded. Loaded nodes keep their children, so navigating
+ * to a directory already in the tree re-roots the tree at its node instead of rebuilding it.
  */
 public class DirectoryTreePanel extends JPanel {
     private static final Logger logger = LoggerFactory.getLogger(DirectoryTreePanel.class);
     
     private final FileSystemModel fileSystemModel;
-    private final DefaultMutableTreeNode rootNode;
     private final DefaultTreeModel treeModel;
     private final JTree directoryTree;
-    private final FileSystemView fileSystemView;
+    private final IconService iconService;
+    private DirectoryNode rootNode;
+    
+    // Subdirectories of the root seen by the listing in progress, to drop the others when it completes
+    private final Set<File> listedSubdirectories = new HashSet<>();
     
     /**
      * Creates a new DirectoryTreePanel.
      */
     public DirectoryTreePanel() {
         this.fileSystemModel = FileSystemModel.getInstance();
-        this.fileSystemView = FileSystemView.getFileSystemView();
+        this.iconService = IconService.getInstance();
         
         setLayout(new BorderLayout());
         
-        // Create tree model with a root node
-        rootNode = new DefaultMutableTreeNode();
+        // Create tree model with a root node for the current directory
+        rootNode = new DirectoryNode(fileSystemModel.getCurrentDirectory(), false);
         treeModel = new DefaultTreeModel(rootNode);
         
         // Create tree with custom cell renderer
@@ -52,64 +68,329 @@ public class DirectoryTreePanel extends JPanel {
         JScrollPane scrollPane = new JScrollPane(directoryTree);
         add(scrollPane, BorderLayout.CENTER);
         
-        // Set initial directory
-        updateDirectoryTree(fileSystemModel.getCurrentDirectory());
+        // Load the children of a node when it is expanded for the first time
+        directoryTree.addTreeWillExpandListener(new TreeWillExpandListener() {
+            @Override
+            public void treeWillExpand(TreeExpansionEvent event) {
+                Object node = event.getPath().getLastPathComponent();
+                if (node instanceof DirectoryNode && node != rootNode) {
+                    loadChildren((DirectoryNode) node);
+                }
+            }
+            
+            @Override
+            public void treeWillCollapse(TreeExpansionEvent event) {
+                // Collapsed nodes keep their children
+            }
+        });
         
         // Add selection listener
         directoryTree.addTreeSelectionListener(e -> {
             DefaultMutableTreeNode selectedNode = (DefaultMutableTreeNode) 
                     directoryTree.getLastSelectedPathComponent();
             
-            if (selectedNode != null && selectedNode.getUserObject() instanceof File) {
-                File selectedDir = (File) selectedNode.getUserObject();
-                
-                if (selectedDir.isDirectory()) {
-                    UIUtils.runWithLoadingIndicator(this, 
-                            () -> fileSystemModel.setCurrentDirectory(selectedDir),
-                            "Loading directory...");
-                }
+            if (selectedNode instanceof DirectoryNode && selectedNode != rootNode) {
+                File selectedDir = ((DirectoryNode) selectedNode).getDirectory();
+                UIUtils.runWithLoadingIndicator(this, 
+                        () -> fileSystemModel.setCurrentDirectory(selectedDir),
+                        "Loading directory...");
             }
         });
         
-        // Add observer to update when directory changes
+        // Add observers to update when directory changes and as its subdirectories are read
         fileSystemModel.addDirectoryChangeObserver(this::updateDirectoryTree);
+        fileSystemModel.addFileListChunkObserver(this::addSubdirectories);
+        fileSystemModel.addFileChangeObserver(this::applyDirectoryChanges);
         
         logger.debug("DirectoryTreePanel initialized");
     }
     
     /**
-     * Updates the directory tree to show subdirectories of the given directory.
+     * Updates the directory tree to show the given directory. Its subdirectories are added
+     * as the listing of the directory streams in.
      * 
      * @param currentDirectory The current directory
      */
     private void updateDirectoryTree(File currentDirectory) {
+        SwingUtilities.invokeLater(() -> setRoot(currentDirectory));
+    }
+    
+    /**
+     * Makes the tree show the given directory as root. A node already in the tree is reused with
+     * its loaded children; when moving up to the parent, the old root becomes a child of the new one.
+     * 
+     * @param directory The directory of the root node
+     */
+    private void setRoot(File directory) {
+        if (directory.equals(rootNode.getDirectory())) {
+            return;
+        }
+        
+        DirectoryNode node = findNode(directory);
+        if (node != null) {
+            node.removeFromParent();
+        } else {
+            node = new DirectoryNode(directory, false);
+            if (directory.equals(rootNode.getDirectory().getParentFile())) {
+                node.addChildNode(rootNode);
+            }
+        }
+        rootNode = node;
+        listedSubdirectories.clear();
+        treeModel.setRoot(rootNode);
+        directoryTree.expandPath(new TreePath(rootNode.getPath()));
+    }
+    
+    /**
+     * Finds the node of a directory among the loaded nodes of the tree.
+     * 
+     * @param directory The directory
+     * @return The node, or null if the directory is not in the tree
+     */
+    private DirectoryNode findNode(File directory) {
+        Deque<DirectoryNode> queue = new ArrayDeque<>();
+        queue.add(rootNode);
+        while (!queue.isEmpty()) {
+            DirectoryNode node = queue.poll();
+            DirectoryNode child = node.getChildNode(directory);
+            if (child != null) {
+                return child;
+            }
+            queue.addAll(node.getChildNodes());
+        }
+        return null;
+    }
+    
+    /**
+     * Adds the subdirectories of a listing chunk below the root node. Only subdirectories that are
+     * not in the tree yet are inserted; once the listing is complete, children it did not see are removed.
+     * 
+     * @param chunk The chunk of the listing
+     */
+    private void addSubdirectories(FileListChunk chunk) {
         SwingUtilities.invokeLater(() -> {
             try {
-                // Update root node to represent current directory
-                rootNode.setUserObject(currentDirectory);
-                rootNode.removeAllChildren();
-                
-                // Add subdirectories as children
-                List<File> subdirs = fileSystemModel.getSubdirectories();
-                for (File subdir : subdirs) {
-                    DefaultMutableTreeNode childNode = new DefaultMutableTreeNode(subdir);
-                    rootNode.add(childNode);
+                if (!fileSystemModel.isCurrentListing(chunk)) {
+                    return;
+                }
+                if (chunk.isFirst()) {
+                    setRoot(chunk.getDirectory());
+                    listedSubdirectories.clear();
                 }
                 
-                // Notify tree model of changes
-                treeModel.nodeStructureChanged(rootNode);
+                List<File> subdirs = chunk.getSubdirectories();
+                listedSubdirectories.addAll(subdirs);
+                insertChildren(rootNode, subdirs);
+                
+                if (chunk.isLast()) {
+                    for (DirectoryNode child : rootNode.getChildNodes()) {
+                        if (!listedSubdirectories.contains(child.getDirectory())) {
+                            removeChild(rootNode, child);
+                        }
+                    }
+                    setLoaded(rootNode);
+                    listedSubdirectories.clear();
+                    
+                    logger.debug("Updated directory tree: {} ({} subdirectories)", 
+                            chunk.getDirectory().getAbsolutePath(), rootNode.getChildCount());
+                }
                 
                 // Expand root node
                 directoryTree.expandPath(new TreePath(rootNode.getPath()));
-                
-                logger.debug("Updated directory tree: {} ({} subdirectories)", 
-                        currentDirectory.getAbsolutePath(), subdirs.size());
             } catch (Exception e) {
                 logger.error("Error updating directory tree", e);
             }
         });
     }
     
+    /**
+     * Loads the subdirectories of a node in the background, unless they are loaded or loading already.
+     * 
+     * @param node The node that is expanded
+     */
+    private void loadChildren(DirectoryNode node) {
+        if (!node.startLoading()) {
+            return;
+        }
+        
+        SwingWorker<List<File>, Void> worker = new SwingWorker<List<File>, Void>() {
+            @Override
+            protected List<File> doInBackground() {
+                return fileSystemModel.listSubdirectories(node.getDirectory());
+            }
+            
+            @Override
+            protected void done() {
+                List<File> subdirs;
+                try {
+                    subdirs = get();
+                } catch (Exception e) {
+                    logger.error("Error loading subdirectories of {}", node.getDirectory(), e);
+                    subdirs = Collections.emptyList();
+                }
+                
+                // The node may have been re-rooted or dropped in the meantime; updating it is harmless
+                insertChildren(node, subdirs);
+                setLoaded(node);
+                logger.debug("Loaded {} subdirectories of {}", subdirs.size(), node.getDirectory());
+            }
+        };
+        worker.execute();
+    }
+    
+    /**
+     * Inserts nodes for directories that are not children of a node yet, firing one event for all of them.
+     * 
+     * @param parent The parent node
+     * @param directories The directories to add
+     */
+    private void insertChildren(DirectoryNode parent, List<File> directories) {
+        List<Integer> childIndices = new ArrayList<>();
+        for (File directory : directories) {
+            if (parent.getChildNode(directory) == null) {
+                parent.addChildNode(new DirectoryNode(directory, true));
+                childIndices.add(parent.getChildCount() - 1);
+            }
+        }
+        if (!childIndices.isEmpty()) {
+            treeModel.nodesWereInserted(parent, childIndices.stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+    
+    /**
+     * Marks the children of a node as loaded and removes its placeholder.
+     * 
+     * @param node The node
+     */
+    private void setLoaded(DirectoryNode node) {
+        node.setLoaded();
+        DefaultMutableTreeNode placeholder = node.getPlaceholder();
+        if (placeholder.getParent() == node) {
+            treeModel.removeNodeFromParent(placeholder);
+        }
+    }
+    
+    /**
+     * Removes a child node.
+     * 
+     * @param parent The parent node
+     * @param child The child to remove
+     */
+    private void removeChild(DirectoryNode parent, DirectoryNode child) {
+        int index = parent.getIndex(child);
+        parent.removeChildNode(child);
+        treeModel.nodesWereRemoved(parent, new int[] { index }, new Object[] { child });
+    }
+    
+    /**
+     * Adds created subdirectories below the root node and removes deleted ones.
+     * 
+     * @param changes The changes observed together
+     */
+    private void applyDirectoryChanges(List<FileChangeEvent> changes) {
+        SwingUtilities.invokeLater(() -> {
+            if (!fileSystemModel.isCurrentListing(changes.get(0))) {
+                return;
+            }
+            for (FileChangeEvent change : changes) {
+                if (!change.isDirectory()) {
+                    continue;
+                }
+                DirectoryNode existing = rootNode.getChildNode(change.getFile());
+                if (change.getKind() == FileChangeEvent.Kind.CREATED) {
+                    listedSubdirectories.add(change.getFile());
+                    insertChildren(rootNode, Collections.singletonList(change.getFile()));
+                } else if (change.getKind() == FileChangeEvent.Kind.DELETED && existing != null) {
+                    listedSubdirectories.remove(change.getFile());
+                    removeChild(rootNode, existing);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Tree node of a directory. Its children are loaded once, on first expansion or from the listing of
+     * the current directory; until then a placeholder child shows that the node can be expanded.
+     * Children are indexed by directory, so merging listings does not scan the children.
+     */
+    private static class DirectoryNode extends DefaultMutableTreeNode {
+        private static final long serialVersionUID = 1L;
+        
+        private final Map<File, DirectoryNode> childNodes = new HashMap<>();
+        private final DefaultMutableTreeNode placeholder;
+        private boolean loading;
+        private boolean loaded;
+        
+        /**
+         * Creates a new DirectoryNode.
+         * 
+         * @param directory The directory
+         * @param withPlaceholder Whether to add a placeholder child until the children are loaded
+         */
+        DirectoryNode(File directory, boolean withPlaceholder) {
+            super(directory);
+            this.placeholder = new DefaultMutableTreeNode("Loading...", false);
+            if (withPlaceholder) {
+                add(placeholder);
+            }
+        }
+        
+        File getDirectory() {
+            return (File) getUserObject();
+        }
+        
+        DefaultMutableTreeNode getPlaceholder() {
+            return placeholder;
+        }
+        
+        /**
+         * Marks the node as loading.
+         * 
+         * @return true if the children still need to be loaded
+         */
+        boolean startLoading() {
+            if (loading || loaded) {
+                return false;
+            }
+            loading = true;
+            return true;
+        }
+        
+        /**
+         * Marks the children as loaded. The placeholder is removed separately, through the tree model.
+         */
+        void setLoaded() {
+            loading = false;
+            loaded = true;
+        }
+        
+        DirectoryNode getChildNode(File directory) {
+            return childNodes.get(directory);
+        }
+        
+        List<DirectoryNode> getChildNodes() {
+            return new ArrayList<>(childNodes.values());
+        }
+        
+        void addChildNode(DirectoryNode child) {
+            childNodes.put(child.getDirectory(), child);
+            add(child);
+        }
+        
+        void removeChildNode(DirectoryNode child) {
+            childNodes.remove(child.getDirectory());
+            remove(child);
+        }
+        
+        @Override
+        public void removeFromParent() {
+            if (getParent() instanceof DirectoryNode) {
+                ((DirectoryNode) getParent()).childNodes.remove(getDirectory());
+            }
+            super.removeFromParent();
+        }
+    }
+    
     /**
      * Custom cell renderer for the directory tree.
      */
@@ -125,15 +406,8 @@ public class DirectoryTreePanel extends JPanel {
             
             if (userObject instanceof File) {
                 File file = (File) userObject;
-                String name = fileSystemView.getSystemDisplayName(file);
-                if (name == null || name.isEmpty()) {
-                    name = file.getName();
-                    if (name.isEmpty()) {
-                        name = file.getPath();
-                    }
-                }
-                setText(name);
-                setIcon(fileSystemView.getSystemIcon(file));
+                setText(iconService.getDisplayName(file, tree));
+                setIcon(iconService.getIcon(file, true, tree));
                 setToolTipText(file.getAbsolutePath());
             }
             
@@ -1,16 +1,22 @@
 package jll.chongwm.doxis.utility.ui;
 
+import jll.chongwm.doxis.utility.model.FileChangeEvent;
+import jll.chongwm.doxis.utility.model.FileListChunk;
 import jll.chongwm.doxis.utility.model.FileRecord;
 import jll.chongwm.doxis.utility.model.FileSystemModel;
 import jll.chongwm.doxis.utility.service.DynamoDBService;
+import jll.chongwm.doxis.utility.utils.IconService;
 
 import javax.swing.*;
-import javax.swing.filechooser.FileSystemView;
 import javax.swing.table.*;
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 import org.slf4j.Logger;
@@ -27,7 +33,7 @@ public class FileTablePanel extends JPanel
 	private final DynamoDBService dynamoDBService;
 	private final FileTableModel tableModel;
 	private final JTable fileTable;
-	private final FileSystemView fileSystemView;
+	private final IconService iconService;
 	private JButton selectAllButton;
 	private JButton deselectAllButton;
 
@@ -38,7 +44,7 @@ public class FileTablePanel extends JPanel
 	{
 		this.fileSystemModel = FileSystemModel.getInstance();
 		this.dynamoDBService = DynamoDBService.getInstance();
-		this.fileSystemView = FileSystemView.getFileSystemView();
+		this.iconService = IconService.getInstance();
 
 		setLayout(new BorderLayout());
 
@@ -84,38 +90,91 @@ public class FileTablePanel extends JPanel
 		// Add to the top of the panel (above the file table)
 		add(buttonPanel, BorderLayout.NORTH);
 
-		// Update with current directory files
-		updateFileTable(fileSystemModel.getFiles());
-
-		// Add observers
-		fileSystemModel.addFileListChangeObserver(this::updateFileTable);
-		fileSystemModel.addFileRecordChangeObserver(this::updateFileRecord);
+		// Add observers; the files of the current directory stream in once MainPanel starts the first listing
+		fileSystemModel.addFileListChunkObserver(this::updateFileTable);
+		fileSystemModel.addFileChangeObserver(this::applyFileChanges);
+		fileSystemModel.addFileRecordChangeObserver(this::updateFileRecords);
 
 		logger.debug("FileTablePanel initialized");
 	}
 
 	/**
-	 * Updates the file table with the given list of files.
+	 * Updates the file table with a chunk of the directory listing. The first chunk replaces the table contents,
+	 * later chunks are appended. Chunks of a listing that was superseded are dropped.
+	 * 
+	 * @param chunk The chunk of the listing
+	 */
+	private void updateFileTable(FileListChunk chunk)
+	{
+		SwingUtilities.invokeLater(() ->
+		{
+			if (!fileSystemModel.isCurrentListing(chunk))
+			{
+				return;
+			}
+			if (chunk.isFirst())
+			{
+				tableModel.setFiles(chunk.getFiles());
+			} else
+			{
+				tableModel.addFiles(chunk.getFiles());
+			}
+			if (chunk.isLast())
+			{
+				logger.debug("Updated file table with {} files", tableModel.getRowCount());
+			}
+		});
+	}
+
+	/**
+	 * Applies changes of the current directory to the table. Deletions are collected and removed together, so a burst
+	 * of deletions rebuilds the table once. Directories are not shown in the table.
 	 * 
-	 * @param files List of files to display
+	 * @param changes The changes observed together
 	 */
-	private void updateFileTable(List<File> files)
+	private void applyFileChanges(List<FileChangeEvent> changes)
 	{
 		SwingUtilities.invokeLater(() ->
 		{
-			tableModel.setFiles(files);
-			logger.debug("Updated file table with {} files", files.size());
+			if (!fileSystemModel.isCurrentListing(changes.get(0)))
+			{
+				return;
+			}
+			List<File> deletedFiles = new ArrayList<>();
+			for (FileChangeEvent change : changes)
+			{
+				if (change.isDirectory())
+				{
+					continue;
+				}
+				switch (change.getKind())
+				{
+				case CREATED:
+					// A file deleted and created again must be removed before it is added
+					tableModel.removeFiles(deletedFiles);
+					deletedFiles.clear();
+					tableModel.addFile(change.getFile());
+					break;
+				case DELETED:
+					deletedFiles.add(change.getFile());
+					break;
+				case MODIFIED:
+					tableModel.updateFile(change.getFile());
+					break;
+				}
+			}
+			tableModel.removeFiles(deletedFiles);
 		});
 	}
 
 	/**
-	 * Updates a file record in the table.
+	 * Updates changed file records in the table.
 	 * 
-	 * @param record The file record to update
+	 * @param records The file records that changed together
 	 */
-	private void updateFileRecord(FileRecord record)
+	private void updateFileRecords(List<FileRecord> records)
 	{
-		SwingUtilities.invokeLater(() -> { tableModel.updateFileRecord(record); });
+		SwingUtilities.invokeLater(() -> { tableModel.updateFileRecords(records); });
 	}
 
 	/**
@@ -127,6 +186,9 @@ public class FileTablePanel extends JPanel
 		{ "", "File Name", "Path" };
 		private final Vector<File> files = new Vector<>();
 
+		// Model row of each file by canonical path; model rows do not change when the view is sorted
+		private final Map<String, Integer> rowIndex = new HashMap<>();
+
 		/**
 		 * Sets the files to display in the table.
 		 * 
@@ -135,33 +197,164 @@ public class FileTablePanel extends JPanel
 		public void setFiles(List<File> newFiles)
 		{
 			files.clear();
+			rowIndex.clear();
 			files.addAll(newFiles);
+			indexRows(0);
 			fireTableDataChanged();
 		}
 
 		/**
-		 * Updates a file record in the table.
+		 * Appends files to the table, skipping files that are already shown.
 		 * 
-		 * @param record The file record to update
+		 * @param newFiles List of files to append
 		 */
-		public void updateFileRecord(FileRecord record)
+		public void addFiles(List<File> newFiles)
 		{
-			for (int i = 0; i < files.size(); i++)
+			int firstRow = files.size();
+			for (File file : newFiles)
 			{
-				File file = files.get(i);
-				try
+				if (rowIndex.putIfAbsent(pathOf(file), files.size()) == null)
 				{
-					if (file.getCanonicalPath().equals(record.getFilePath()))
-					{
-						// Found the file, update checkbox state
-						fireTableCellUpdated(i, 0);
-						break;
-					}
-				} catch (IOException e)
+					files.add(file);
+				}
+			}
+			if (files.size() > firstRow)
+			{
+				fireTableRowsInserted(firstRow, files.size() - 1);
+			}
+		}
+
+		/**
+		 * Appends a file to the table unless it is already shown.
+		 * 
+		 * @param file The file to append
+		 */
+		public void addFile(File file)
+		{
+			if (!rowIndex.containsKey(pathOf(file)))
+			{
+				files.add(file);
+				indexRows(files.size() - 1);
+				fireTableRowsInserted(files.size() - 1, files.size() - 1);
+			}
+		}
+
+		/**
+		 * Removes files from the table in one pass over the rows, indexing the rows once from the first removed row.
+		 * Rows removed in one block are reported as deleted; scattered rows as a data change, since each deletion
+		 * event makes the row sorter go over all rows.
+		 * 
+		 * @param removedFiles The files to remove; files not shown are ignored
+		 */
+		public void removeFiles(List<File> removedFiles)
+		{
+			if (removedFiles.isEmpty())
+			{
+				return;
+			}
+			BitSet removedRows = new BitSet(files.size());
+			for (File file : removedFiles)
+			{
+				Integer row = rowIndex.remove(pathOf(file));
+				if (row != null)
 				{
-					logger.error("Error getting canonical path", e);
+					removedRows.set(row);
+				}
+			}
+			if (removedRows.isEmpty())
+			{
+				return;
+			}
+
+			int firstRow = removedRows.nextSetBit(0);
+			int lastRow = removedRows.length() - 1;
+			int keptRow = firstRow;
+			for (int row = firstRow; row < files.size(); row++)
+			{
+				if (!removedRows.get(row))
+				{
+					files.set(keptRow++, files.get(row));
+				}
+			}
+			files.setSize(keptRow);
+			indexRows(firstRow);
+
+			if (removedRows.cardinality() == lastRow - firstRow + 1)
+			{
+				fireTableRowsDeleted(firstRow, lastRow);
+			} else
+			{
+				fireTableDataChanged();
+			}
+		}
+
+		/**
+		 * Repaints the row of a file.
+		 * 
+		 * @param file The file that changed
+		 */
+		public void updateFile(File file)
+		{
+			Integer row = rowIndex.get(pathOf(file));
+			if (row != null)
+			{
+				fireTableRowsUpdated(row, row);
+			}
+		}
+
+		/**
+		 * Repaints the rows of changed file records with a single event covering all of them.
+		 * 
+		 * @param records The file records that changed
+		 */
+		public void updateFileRecords(List<FileRecord> records)
+		{
+			int firstRow = Integer.MAX_VALUE;
+			int lastRow = -1;
+			for (FileRecord record : records)
+			{
+				Integer row = rowIndex.get(record.getFilePath());
+				if (row != null)
+				{
+					firstRow = Math.min(firstRow, row);
+					lastRow = Math.max(lastRow, row);
 				}
 			}
+			if (lastRow >= 0)
+			{
+				fireTableRowsUpdated(firstRow, lastRow);
+			}
+		}
+
+		/**
+		 * Indexes the rows from the given row to the end of the table by canonical path.
+		 * 
+		 * @param firstRow The first row to index
+		 */
+		private void indexRows(int firstRow)
+		{
+			for (int row = firstRow; row < files.size(); row++)
+			{
+				rowIndex.put(pathOf(files.get(row)), row);
+			}
+		}
+
+		/**
+		 * Gets the canonical path of a file, which is cached by the model for listed files.
+		 * 
+		 * @param file The file
+		 * @return The canonical path, or the absolute path if it cannot be resolved
+		 */
+		private String pathOf(File file)
+		{
+			try
+			{
+				return fileSystemModel.getCanonicalPath(file);
+			} catch (IOException e)
+			{
+				logger.error("Error getting canonical path", e);
+				return file.getAbsolutePath();
+			}
 		}
 
 		@Override
@@ -219,7 +412,7 @@ public class FileTablePanel extends JPanel
 			case 2: // File path
 				try
 				{
-					return file.getCanonicalPath();
+					return fileSystemModel.getCanonicalPath(file);
 				} catch (IOException e)
 				{
 					logger.error("Error getting canonical path", e);
@@ -238,29 +431,28 @@ public class FileTablePanel extends JPanel
 				File file = files.get(row);
 				boolean selected = (Boolean) value;
 
-				// Update file selection state in model
-				fileSystemModel.updateFileSelection(file, selected);
-
-				// Add record to pending list for sync
-				try
+				// Update file selection state in model and add the record to the pending list for sync
+				FileRecord record = fileSystemModel.updateFileSelection(file, selected);
+				if (record != null)
 				{
-					String canonicalPath = file.getCanonicalPath();
-					long timestamp = file.lastModified();
-					String username = System.getProperty("user.name");
-
-					FileRecord record = new FileRecord(canonicalPath, timestamp, username, selected);
 					dynamoDBService.addRecord(record);
-
-					logger.debug("File selection changed: {} ({})", file.getName(), selected);
-				} catch (IOException e)
-				{
-					logger.error("Error updating file selection", e);
 				}
+				logger.debug("File selection changed: {} ({})", file.getName(), selected);
 
 				fireTableCellUpdated(row, column);
 			}
 		}
 
+		/**
+		 * Gets a copy of the files in the table.
+		 * 
+		 * @return List of files
+		 */
+		public List<File> getFiles()
+		{
+			return new ArrayList<>(files);
+		}
+
 		/**
 		 * Gets the file at the given row.
 		 * 
@@ -329,7 +521,7 @@ public class FileTablePanel extends JPanel
 			{
 				File file = (File) value;
 				setText(file.getName());
-				setIcon(fileSystemView.getSystemIcon(file));
+				setIcon(iconService.getIcon(file, false, table));
 				setToolTipText(file.getAbsolutePath());
 			}
 
@@ -340,28 +532,55 @@ public class FileTablePanel extends JPanel
 	/**
 	 * Selects all files in the table.
 	 */
-	private void selectAllFiles() {
-	    for (int i = 0; i < tableModel.getRowCount(); i++) {
-	        File file = tableModel.getFileAt(i);
-	        fileSystemModel.updateFileSelection(file, true);
-	        tableModel.setValueAt(true, i, 0);
-	    }
-	    logger.debug("Selected all files");
+	private void selectAllFiles()
+	{
+		updateAllFileSelections(true);
 	}
 
 	/**
 	 * Deselects all files in the table.
 	 */
-	private void deselectAllFiles() {
-	    for (int i = 0; i < tableModel.getRowCount(); i++) {
-	        File file = tableModel.getFileAt(i);
-	        fileSystemModel.updateFileSelection(file, false);
-	        tableModel.setValueAt(false, i, 0);
-	    }
-	    logger.debug("Deselected all files");
-	}	
-	
-	
-	
-	
+	private void deselectAllFiles()
+	{
+		updateAllFileSelections(false);
+	}
+
+	/**
+	 * Sets the selection state of all files in the table in the background. The model notifies the table
+	 * once for all files and the records are queued for sync as one batch.
+	 * 
+	 * @param selected Whether the files are selected
+	 */
+	private void updateAllFileSelections(boolean selected)
+	{
+		List<File> files = tableModel.getFiles();
+		selectAllButton.setEnabled(false);
+		deselectAllButton.setEnabled(false);
+
+		SwingWorker<Integer, Void> worker = new SwingWorker<Integer, Void>()
+		{
+			@Override
+			protected Integer doInBackground()
+			{
+				List<FileRecord> records = fileSystemModel.updateFileSelections(files, selected);
+				dynamoDBService.addRecords(records);
+				return records.size();
+			}
+
+			@Override
+			protected void done()
+			{
+				try
+				{
+					logger.debug("{} {} files", selected ? "Selected" : "Deselected", get());
+				} catch (Exception e)
+				{
+					logger.error("Error updating file selections", e);
+				}
+				selectAllButton.setEnabled(true);
+				deselectAllButton.setEnabled(true);
+			}
+		};
+		worker.execute();
+	}
 }
\ No newline at end of file
@@ -5,7 +5,9 @@ import java.awt.Dimension;
 import java.awt.Toolkit;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.File;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 import javax.swing.BorderFactory;
 import javax.swing.JFrame;
@@ -38,7 +40,10 @@ public class MainPanel extends JPanel
 	private final StatusBarPanel statusBarPanel;
 	
 	// Reference to track active background workers
-	private SwingWorker<?, ?> activeWorker;
+	private volatile SwingWorker<?, ?> activeWorker;
+
+	// Load only the records of the current directory instead of the whole table (-Djrec.load.scope=directory)
+	private final boolean directoryScopedLoading = "directory".equalsIgnoreCase(System.getProperty("jrec.load.scope", "all"));
 
 	/**
 	 * Creates a new MainPanel.
@@ -48,7 +53,6 @@ public class MainPanel extends JPanel
 		// Initialize models and services
 		fileSystemModel = FileSystemModel.getInstance();
 		dynamoDBService = DynamoDBService.getInstance();
-		dynamoDBService.initialize();
 
 		// Set layout
 		setLayout(new BorderLayout());
@@ -81,8 +85,21 @@ public class MainPanel extends JPanel
 		statusBarPanel = new StatusBarPanel();
 		add(statusBarPanel, BorderLayout.SOUTH);
 
+		// List the start directory now that all panels observe the model
+		fileSystemModel.reloadCurrentDirectory();
+
 		// Load file records from DynamoDB
-		loadFileRecords();
+		if (directoryScopedLoading)
+		{
+			loadDirectoryRecords(fileSystemModel.getCurrentDirectory());
+			fileSystemModel.addDirectoryChangeObserver(this::loadDirectoryRecords);
+		} else
+		{
+			loadFileRecords();
+		}
+
+		// Merge selections made by other users as they reach DynamoDB
+		dynamoDBService.startDeltaSync(fileSystemModel::updateFileRecords);
 
 		logger.info("MainPanel initialized");
 	}
@@ -108,16 +125,16 @@ public class MainPanel extends JPanel
 	}
 
 	/**
-	 * Loads file records from DynamoDB.
+	 * Loads file records from DynamoDB. Records are merged into the model page by page as they are scanned.
 	 */
 	private void loadFileRecords()
 	{
-		SwingWorker<List<FileRecord>, Void> worker = new SwingWorker<List<FileRecord>, Void>()
+		SwingWorker<Integer, Void> worker = new SwingWorker<Integer, Void>()
 		{
 			@Override
-			protected List<FileRecord> doInBackground()
+			protected Integer doInBackground()
 			{
-				return dynamoDBService.loadAllRecords();
+				return dynamoDBService.loadAllRecords(fileSystemModel::updateFileRecords);
 			}
 
 			@Override
@@ -125,12 +142,7 @@ public class MainPanel extends JPanel
 			{
 				try
 				{
-					List<FileRecord> records = get();
-					if (records != null)
-					{
-						fileSystemModel.updateFileRecords(records);
-						logger.info("Loaded {} file records from DynamoDB", records.size());
-					}
+					logger.info("Loaded {} file records from DynamoDB", get());
 				} catch (Exception e)
 				{
 					logger.error("Error loading file records", e);
@@ -142,6 +154,51 @@ public class MainPanel extends JPanel
 		worker.execute();
 	}
 	
+	/**
+	 * Loads the file records of a single directory from DynamoDB, replacing any directory load still in progress.
+	 * 
+	 * @param directory The directory whose records to load
+	 */
+	private void loadDirectoryRecords(File directory)
+	{
+		SwingWorker<Integer, Void> worker = new SwingWorker<Integer, Void>()
+		{
+			@Override
+			protected Integer doInBackground()
+			{
+				List<FileRecord> records = dynamoDBService.loadRecordsInDirectory(directory.getPath());
+				if (!isCancelled())
+				{
+					fileSystemModel.updateFileRecords(records);
+				}
+				return records.size();
+			}
+
+			@Override
+			protected void done()
+			{
+				try
+				{
+					logger.debug("Loaded {} file records for {}", get(), directory);
+				} catch (CancellationException e)
+				{
+					logger.debug("Superseded record load for {}", directory);
+				} catch (Exception e)
+				{
+					logger.error("Error loading file records for {}", directory, e);
+				}
+			}
+		};
+
+		SwingWorker<?, ?> previous = activeWorker;
+		if (previous != null && !previous.isDone())
+		{
+			previous.cancel(true);
+		}
+		activeWorker = worker;
+		worker.execute();
+	}
+
 	/**
 	 * Cleanly shuts down all services and background processes.
 	 */
@@ -5,6 +5,8 @@ import jll.chongwm.doxis.utility.utils.UIUtils;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.filechooser.FileSystemView;
 import java.awt.*;
 import java.awt.event.*;
@@ -17,10 +19,12 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Panel displaying the current directory path with navigation buttons.
- * Includes address bar and navigation controls.
+ * Includes address bar and navigation controls. While a path is typed, known directories starting with it
+ * are suggested and the subdirectories of the typed parent are indexed in the background.
  */
 public class PathBarPanel extends JPanel {
     private static final Logger logger = LoggerFactory.getLogger(PathBarPanel.class);
+    private static final int MAX_SUGGESTIONS = 10;
     
     private final FileSystemModel fileSystemModel;
     private final JTextField pathField;
@@ -29,6 +33,9 @@ public class PathBarPanel extends JPanel {
     private final JButton refreshButton;
     private final JComboBox<String> driveComboBox;
     private final FileSystemView fileSystemView;
+    private final JPopupMenu suggestionPopup;
+    private final DefaultListModel<String> suggestionModel;
+    private final JList<String> suggestionList;
     
     private boolean updatingUI = false;
     
@@ -96,11 +103,31 @@ public class PathBarPanel extends JPanel {
         
         add(controlPanel, BorderLayout.WEST);
         
+        // Path suggestions, shown below the path field without taking the focus from it
+        suggestionModel = new DefaultListModel<>();
+        suggestionList = new JList<>(suggestionModel);
+        suggestionList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        suggestionList.setFocusable(false);
+        suggestionList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = suggestionList.locationToIndex(e.getPoint());
+                if (index >= 0) {
+                    acceptSuggestion(suggestionModel.get(index));
+                    pathField.postActionEvent();
+                }
+            }
+        });
+        suggestionPopup = new JPopupMenu();
+        suggestionPopup.setFocusable(false);
+        suggestionPopup.add(new JScrollPane(suggestionList));
+        
         // Path text field
         pathField = new JTextField();
         pathField.addActionListener(e -> {
             if (updatingUI) return;
             
+            suggestionPopup.setVisible(false);
             String path = pathField.getText().trim();
             if (!path.isEmpty()) {
                 File dir = new File(path);
@@ -123,6 +150,60 @@ public class PathBarPanel extends JPanel {
         });
         add(pathField, BorderLayout.CENTER);
         
+        pathField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                pathTyped();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                pathTyped();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Attribute changes only
+            }
+        });
+        pathField.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (!suggestionPopup.isVisible()) {
+                    return;
+                }
+                int selected = suggestionList.getSelectedIndex();
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_DOWN:
+                        selectSuggestion(Math.min(selected + 1, suggestionModel.size() - 1));
+                        e.consume();
+                        break;
+                    case KeyEvent.VK_UP:
+                        selectSuggestion(Math.max(selected - 1, 0));
+                        e.consume();
+                        break;
+                    case KeyEvent.VK_ESCAPE:
+                        suggestionPopup.setVisible(false);
+                        e.consume();
+                        break;
+                    case KeyEvent.VK_ENTER:
+                        // The action listener then navigates to the accepted path
+                        if (selected >= 0) {
+                            acceptSuggestion(suggestionModel.get(selected));
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        });
+        pathField.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                suggestionPopup.setVisible(false);
+            }
+        });
+        
         // Set initial path
         updatePathField(fileSystemModel.getCurrentDirectory());
         
@@ -168,6 +249,82 @@ public class PathBarPanel extends JPanel {
         });
     }
     
+    /**
+     * Updates the suggestions after the path was edited by the user.
+     */
+    private void pathTyped() {
+        if (updatingUI) {
+            return;
+        }
+        // Showing the popup changes the component tree, which is not allowed while the document notifies
+        SwingUtilities.invokeLater(this::updateSuggestions);
+    }
+    
+    /**
+     * Shows the known directories starting with the typed path, and indexes the subdirectories
+     * of the typed parent in the background to suggest them as well.
+     */
+    private void updateSuggestions() {
+        String text = pathField.getText();
+        if (text.isEmpty() || !pathField.isFocusOwner()) {
+            suggestionPopup.setVisible(false);
+            return;
+        }
+        
+        int separator = Math.max(text.lastIndexOf(File.separatorChar), text.lastIndexOf('/'));
+        if (separator >= 0) {
+            String parent = text.substring(0, separator + 1);
+            fileSystemModel.prefetchPathCompletions(new File(parent), () -> SwingUtilities.invokeLater(() -> {
+                if (pathField.getText().startsWith(parent)) {
+                    updateSuggestions();
+                }
+            }));
+        }
+        
+        List<String> completions = fileSystemModel.getPathCompletions(text, MAX_SUGGESTIONS);
+        if (completions.isEmpty()) {
+            suggestionPopup.setVisible(false);
+            return;
+        }
+        
+        suggestionModel.clear();
+        suggestionModel.addAll(completions);
+        suggestionList.clearSelection();
+        suggestionList.setVisibleRowCount(completions.size());
+        suggestionPopup.setPreferredSize(null);
+        suggestionPopup.setPopupSize(pathField.getWidth(), suggestionPopup.getPreferredSize().height);
+        if (suggestionPopup.isVisible()) {
+            suggestionPopup.pack();
+        } else {
+            suggestionPopup.show(pathField, 0, pathField.getHeight());
+        }
+    }
+    
+    /**
+     * Selects a suggestion with the keyboard.
+     * 
+     * @param index The index of the suggestion
+     */
+    private void selectSuggestion(int index) {
+        suggestionList.setSelectedIndex(index);
+        suggestionList.ensureIndexIsVisible(index);
+    }
+    
+    /**
+     * Puts a suggested path into the path field without suggesting again.
+     * 
+     * @param path The suggested path
+     */
+    private void acceptSuggestion(String path) {
+        suggestionPopup.setVisible(false);
+        updatingUI = true;
+        try {
+            pathField.setText(path);
+        } finally {
+            updatingUI = false;
+        }
+    }
+    
     /**
      * Gets the root path for a file.
      * 
@@ -1,5 +1,6 @@
 package jll.chongwm.doxis.utility.ui;
 
+import jll.chongwm.doxis.utility.model.FileChangeEvent;
 import jll.chongwm.doxis.utility.model.FileRecord;
 import jll.chongwm.doxis.utility.model.FileSystemModel;
 import jll.chongwm.doxis.utility.service.DynamoDBService;
@@ -17,7 +18,6 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +38,7 @@ public class StatusBarPanel extends JPanel
 	private final JButton syncButton;
 
 	private final AtomicInteger selectedCount = new AtomicInteger(0);
+	private int itemCount = 0;
 	private long lastSyncTime = 0;
 
 	private ScheduledExecutorService scheduler;
@@ -67,7 +68,7 @@ public class StatusBarPanel extends JPanel
 		// Right side - sync status and button
 		JPanel syncPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
 
-		lastSyncLabel = new JLabel("Last sync: Never");
+		lastSyncLabel = new JLabel("Connecting...");
 		syncPanel.add(lastSyncLabel);
 
 		syncButton = new JButton("Sync Now");
@@ -101,8 +102,12 @@ public class StatusBarPanel extends JPanel
 
 		// Add observers
 		fileSystemModel.addFileListChangeObserver(this::updateItemCount);
+		fileSystemModel.addFileChangeObserver(this::applyFileChanges);
 		fileSystemModel.addFileRecordChangeObserver(this::updateSelectedCount);
 
+		// Replace the connecting status once the record store is ready
+		dynamoDBService.whenReady().whenComplete((result, e) -> updateLastSyncTimeDisplay());
+
 		// Schedule periodic updates for sync time
 		scheduler = Executors.newScheduledThreadPool(1);
 		scheduler.scheduleAtFixedRate(this::updateLastSyncTimeDisplay, 1, 60, TimeUnit.SECONDS);
@@ -139,33 +144,65 @@ public class StatusBarPanel extends JPanel
 	{
 		SwingUtilities.invokeLater(() ->
 		{
-			itemCountLabel.setText("Items: " + files.size());
+			itemCount = files.size();
+			itemCountLabel.setText("Items: " + itemCount);
 			updateSelectedCount();
 		});
 	}
 
 	/**
-	 * Updates the selected count when a file record changes.
+	 * Adjusts the item count for files created or deleted in the current directory.
 	 * 
-	 * @param record The file record that changed
+	 * @param changes The changes observed together
 	 */
-	private void updateSelectedCount(FileRecord record)
+	private void applyFileChanges(List<FileChangeEvent> changes)
+	{
+		SwingUtilities.invokeLater(() ->
+		{
+			if (!fileSystemModel.isCurrentListing(changes.get(0)))
+			{
+				return;
+			}
+			for (FileChangeEvent change : changes)
+			{
+				if (change.isDirectory())
+				{
+					continue;
+				}
+				if (change.getKind() == FileChangeEvent.Kind.CREATED)
+				{
+					itemCount++;
+				} else if (change.getKind() == FileChangeEvent.Kind.DELETED)
+				{
+					itemCount = Math.max(0, itemCount - 1);
+				}
+			}
+			itemCountLabel.setText("Items: " + itemCount);
+		});
+	}
+
+	/**
+	 * Updates the selected count when file records change.
+	 * 
+	 * @param records The file records that changed together
+	 */
+	private void updateSelectedCount(List<FileRecord> records)
 	{
 		updateSelectedCount();
 	}
 
 	/**
-	 * Updates the selected count display.
+	 * Updates the selected count display from the counters of the model.
 	 */
 	private void updateSelectedCount()
 	{
 		SwingUtilities.invokeLater(() ->
 		{
-			List<FileRecord> records = fileSystemModel.getAllFileRecords();
-			int count = (int) records.stream().filter(FileRecord::isSelected).count();
+			int count = fileSystemModel.getSelectedCount();
+			int countHere = fileSystemModel.getSelectedCount(fileSystemModel.getCurrentDirectory());
 
 			selectedCount.set(count);
-			selectedCountLabel.setText("Selected: " + count);
+			selectedCountLabel.setText("Selected: " + count + (countHere > 0 ? " (" + countHere + " here)" : ""));
 		});
 	}
 
@@ -185,7 +222,13 @@ public class StatusBarPanel extends JPanel
 	{
 		SwingUtilities.invokeLater(() ->
 		{
-			if (lastSyncTime == 0)
+			if (!dynamoDBService.whenReady().isDone())
+			{
+				lastSyncLabel.setText("Connecting...");
+			} else if (dynamoDBService.whenReady().isCompletedExceptionally())
+			{
+				lastSyncLabel.setText("Offline");
+			} else if (lastSyncTime == 0)
 			{
 				lastSyncLabel.setText("Last sync: Never");
 			} else
@@ -242,6 +285,6 @@ public class StatusBarPanel extends JPanel
 	 */
 	public List<String> getSelectedFilePaths()
 	{
-		return fileSystemModel.getAllFileRecords().stream().filter(FileRecord::isSelected).map(FileRecord::getFilePath).collect(Collectors.toList());
+		return fileSystemModel.getSelectedFilePaths();
 	}
 }
\ No newline at end of file
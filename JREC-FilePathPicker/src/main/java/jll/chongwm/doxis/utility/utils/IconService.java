@@ -0,0 +1,198 @@
+package jll.chongwm.doxis.utility.utils;
+
+import javax.swing.*;
+import javax.swing.filechooser.FileSystemView;
+
+import java.awt.Component;
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves system icons and display names for renderers without blocking the event dispatch thread.
+ * <p>
+ * FileSystemView calls go to the shell on Windows and can take a long time on network shares. A renderer gets
+ * a cached value or, on a miss, a placeholder at once; the real value is resolved on a small background pool and
+ * the component that asked is repainted when it arrives. Icons are cached by type (directory, or file extension),
+ * except for types whose files carry their own icon. Both caches are LRU and bounded by -Djrec.icon.cache.size
+ * (default 512).
+ */
+public class IconService {
+    private static final Logger logger = LoggerFactory.getLogger(IconService.class);
+
+    private static final String DIRECTORY_KEY = "<dir>";
+    private static final String NO_EXTENSION_KEY = "<file>";
+
+    // Files of these types usually have an icon of their own, so they are cached by path
+    private static final Set<String> PER_FILE_ICON_EXTENSIONS = new HashSet<>(Arrays.asList("exe", "lnk", "ico", "url", "msc", "cpl"));
+
+    private static IconService instance;
+
+    private final FileSystemView fileSystemView = FileSystemView.getFileSystemView();
+    private final Map<String, Icon> icons;
+    private final Map<File, String> displayNames;
+
+    // Keys being resolved, with the components to repaint once they are
+    private final Map<Object, Set<Component>> pending = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    private IconService() {
+        int cacheSize = Integer.getInteger("jrec.icon.cache.size", 512);
+        this.icons = lruCache(cacheSize);
+        this.displayNames = lruCache(cacheSize);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(2, r -> {
+            Thread thread = new Thread(r, "jrec-icon-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets the singleton instance of the service.
+     *
+     * @return The IconService instance
+     */
+    public static synchronized IconService getInstance() {
+        if (instance == null) {
+            instance = new IconService();
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the system icon of a file. Must be called on the event dispatch thread.
+     *
+     * @param file The file
+     * @param directory Whether the file is a directory; passed in so no file system call is needed
+     * @param component The component to repaint when the real icon is resolved
+     * @return The icon, or a placeholder until it is resolved
+     */
+    public Icon getIcon(File file, boolean directory, Component component) {
+        String key = iconKey(file, directory);
+        Icon icon;
+        synchronized (icons) {
+            icon = icons.get(key);
+        }
+        if (icon != null) {
+            return icon;
+        }
+
+        resolve(key, component, () -> {
+            Icon resolved = fileSystemView.getSystemIcon(file);
+            if (resolved == null) {
+                // The file is gone; its icon says nothing about other files of the type
+                return false;
+            }
+            synchronized (icons) {
+                icons.put(key, resolved);
+            }
+            return true;
+        });
+        return placeholder(directory);
+    }
+
+    /**
+     * Gets the system display name of a file, e.g. the name of a drive. Must be called on the event dispatch thread.
+     *
+     * @param file The file
+     * @param component The component to repaint when the display name is resolved
+     * @return The display name, or the file name until it is resolved
+     */
+    public String getDisplayName(File file, Component component) {
+        String name;
+        synchronized (displayNames) {
+            name = displayNames.get(file);
+        }
+        if (name != null) {
+            return name;
+        }
+
+        resolve(file, component, () -> {
+            String resolved = fileSystemView.getSystemDisplayName(file);
+            synchronized (displayNames) {
+                displayNames.put(file, resolved == null || resolved.isEmpty() ? fallbackName(file) : resolved);
+            }
+            return true;
+        });
+        return fallbackName(file);
+    }
+
+    /**
+     * Resolves a key in the background unless it is already being resolved, then repaints the waiting components.
+     * Components are only repainted if the resolver cached a value, so a value that cannot be resolved does not
+     * cause a loop of repaints and lookups.
+     */
+    private void resolve(Object key, Component component, BooleanSupplier resolver) {
+        Set<Component> waiting = ConcurrentHashMap.newKeySet();
+        Set<Component> existing = pending.putIfAbsent(key, waiting);
+        if (existing != null) {
+            existing.add(component);
+            return;
+        }
+        waiting.add(component);
+
+        executor.execute(() -> {
+            boolean resolved = false;
+            try {
+                resolved = resolver.getAsBoolean();
+            } catch (RuntimeException e) {
+                logger.debug("Could not resolve icon or name for {}", key, e);
+            } finally {
+                Set<Component> components = pending.remove(key);
+                if (resolved) {
+                    SwingUtilities.invokeLater(() -> components.forEach(Component::repaint));
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the cache key of an icon: the type for most files, the path for files with an icon of their own.
+     */
+    private static String iconKey(File file, boolean directory) {
+        if (directory) {
+            // Drives and other roots have icons of their own
+            return file.getParentFile() == null ? file.getPath() : DIRECTORY_KEY;
+        }
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        if (dot <= 0 || dot == name.length() - 1) {
+            return NO_EXTENSION_KEY;
+        }
+        String extension = name.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return PER_FILE_ICON_EXTENSIONS.contains(extension) ? file.getPath() : "." + extension;
+    }
+
+    private static Icon placeholder(boolean directory) {
+        return UIManager.getIcon(directory ? "FileView.directoryIcon" : "FileView.fileIcon");
+    }
+
+    private static String fallbackName(File file) {
+        return file.getName().isEmpty() ? file.getPath() : file.getName();
+    }
+
+    private static <K, V> Map<K, V> lruCache(int maxSize) {
+        return new LinkedHashMap<K, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package jll.chongwm.doxis.utility.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs navigation tasks on a bounded pool with latest-wins semantics.
+ * <p>
+ * Submitting a task supersedes the one submitted before it: a queued task is dropped, a running task is
+ * interrupted and its future is cancelled at once. More than one worker is kept so a task stuck in a
+ * non-interruptible call, e.g. resolving a path on an unreachable network share, does not hold up the next one.
+ * <p>
+ * The number of workers is set with -Djrec.navigation.threads (default 2). With -Djrec.navigation.virtualThreads=true
+ * the workers are virtual threads where the runtime supports them (JDK 21 and later).
+ */
+public class NavigationExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(NavigationExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+
+    // The latest task; guarded by this
+    private Future<?> current;
+    private CompletableFuture<Void> currentResult;
+
+    /**
+     * Creates a new NavigationExecutor with the settings from the system properties.
+     *
+     * @param name The name prefix of the worker threads
+     */
+    public NavigationExecutor(String name) {
+        int threads = Math.max(1, Integer.getInteger("jrec.navigation.threads", 2));
+        ThreadFactory threadFactory = Boolean.getBoolean("jrec.navigation.virtualThreads") ? virtualThreadFactory(name) : null;
+        if (threadFactory == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            threadFactory = r -> {
+                Thread thread = new Thread(r, name + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+        logger.debug("Navigation executor {}: {} workers", name, threads);
+    }
+
+    /**
+     * Submits a task, superseding the previous one.
+     *
+     * @param task The task
+     * @return Completes when the task has run; cancelled if the task is superseded
+     */
+    public synchronized CompletableFuture<Void> submit(Runnable task) {
+        if (current != null) {
+            // Cancelled before the interrupt, so the superseded task cannot complete normally in between
+            currentResult.cancel(false);
+            current.cancel(true);
+            executor.purge();
+        }
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        current = executor.submit(() -> {
+            try {
+                task.run();
+                result.complete(null);
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        });
+        currentResult = result;
+        return result;
+    }
+
+    /**
+     * Checks if a task is the latest one submitted, i.e. not superseded.
+     *
+     * @param result The future returned by {@link #submit(Runnable)}
+     * @return true if no task was submitted after it
+     */
+    public synchronized boolean isLatest(CompletableFuture<Void> result) {
+        return result == currentResult;
+    }
+
+    /**
+     * Creates a factory for virtual threads. Looked up reflectively, so the application still runs on JDK 17.
+     *
+     * @return The factory, or null if virtual threads are not available
+     */
+    private static ThreadFactory virtualThreadFactory(String name) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.info("Virtual threads not available, using platform threads for navigation: {}", e.toString());
+            return null;
+        }
+    }
+}
\ No newline at end of file
@@ -6,8 +6,9 @@ import javax.swing.filechooser.FileSystemView;
 import java.awt.*;
 import java.awt.event.ActionListener;
 import java.io.File;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,7 +18,12 @@ import org.slf4j.LoggerFactory;
  */
 public class UIUtils {
     private static final Logger logger = LoggerFactory.getLogger(UIUtils.class);
-    private static final ExecutorService executor = Executors.newCachedThreadPool();
+    
+    // Navigation started from any panel supersedes the one in flight
+    private static final NavigationExecutor executor = new NavigationExecutor("jrec-navigation");
+    
+    // Client property of the root pane holding its glass pane while a loading indicator is shown
+    private static final String ORIGINAL_GLASS_PANE = "jrec.originalGlassPane";
     
     /**
      * Creates a standardized button with the given text and action.
@@ -103,6 +109,8 @@ public class UIUtils {
     
     /**
      * Executes a task in a background thread while displaying a loading indicator.
+     * Tasks are run with latest-wins semantics: a new task supersedes the one still in flight,
+     * and the loading indicator stays until the latest task is done.
      * 
      * @param component Parent component
      * @param task Runnable task to execute
@@ -112,33 +120,52 @@ public class UIUtils {
         JRootPane rootPane = SwingUtilities.getRootPane(component);
         if (rootPane == null) {
             logger.warn("Cannot show loading indicator - component not attached to root pane");
-            executor.submit(task);
+            executor.submit(task).whenComplete((result, e) -> logFailure(e));
             return;
         }
         
+        // Keep the real glass pane if the indicator of a superseded task is still shown
+        if (rootPane.getClientProperty(ORIGINAL_GLASS_PANE) == null) {
+            rootPane.putClientProperty(ORIGINAL_GLASS_PANE, rootPane.getGlassPane());
+        }
         JPanel glassPane = createLoadingGlassPane(loadingMessage);
-        Component oldGlassPane = rootPane.getGlassPane();
         rootPane.setGlassPane(glassPane);
         glassPane.setVisible(true);
         
-        executor.submit(() -> {
-            try {
-                task.run();
-            } catch (Exception e) {
-                logger.error("Background task failed", e);
-                SwingUtilities.invokeLater(() -> {
-                    JOptionPane.showMessageDialog(component, 
-                            "Operation failed: " + e.getMessage(), 
-                            "Error", 
-                            JOptionPane.ERROR_MESSAGE);
-                });
-            } finally {
-                SwingUtilities.invokeLater(() -> {
-                    rootPane.setGlassPane(oldGlassPane);
-                    oldGlassPane.setVisible(false);
-                });
+        CompletableFuture<Void> future = executor.submit(task);
+        future.whenComplete((result, e) -> SwingUtilities.invokeLater(() -> {
+            if (!executor.isLatest(future)) {
+                return;
             }
-        });
+            Throwable failure = logFailure(e);
+            if (failure != null) {
+                JOptionPane.showMessageDialog(component, 
+                        "Operation failed: " + failure.getMessage(), 
+                        "Error", 
+                        JOptionPane.ERROR_MESSAGE);
+            }
+            Component oldGlassPane = (Component) rootPane.getClientProperty(ORIGINAL_GLASS_PANE);
+            rootPane.putClientProperty(ORIGINAL_GLASS_PANE, null);
+            if (oldGlassPane != null) {
+                rootPane.setGlassPane(oldGlassPane);
+                oldGlassPane.setVisible(false);
+            }
+        }));
+    }
+    
+    /**
+     * Logs the failure of a background task; superseded tasks are not failures.
+     * 
+     * @param e The exception the task completed with, or null
+     * @return The cause of the failure, or null if the task did not fail
+     */
+    private static Throwable logFailure(Throwable e) {
+        if (e == null || e instanceof CancellationException) {
+            return null;
+        }
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        logger.error("Background task failed", cause);
+        return cause;
     }
     
     /**
@@ -0,0 +1,169 @@
+package jll.chongwm.doxis.utility.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class CompactRecordStoreTest
+{
+	@Test
+	void pathRefRoundTripsAllFields()
+	{
+		long pathRef = CompactRecordStore.pathRef(0x12345678, 0xABC, 0xFEDCB);
+		assertEquals(0x12345678, CompactRecordStore.hashOf(pathRef));
+		assertEquals(0xABC, CompactRecordStore.pageOf(pathRef));
+		assertEquals(0xFEDCB, CompactRecordStore.offsetOf(pathRef));
+	}
+
+	@Test
+	void pathRefKeepsFieldsApartAtTheirLimits()
+	{
+		long pathRef = CompactRecordStore.pathRef(-1, CompactRecordStore.MAX_PAGES - 1, CompactRecordStore.MAX_OFFSET);
+		assertEquals(0x7FFFFFFF, CompactRecordStore.hashOf(pathRef));
+		assertEquals(CompactRecordStore.MAX_PAGES - 1, CompactRecordStore.pageOf(pathRef));
+		assertEquals(CompactRecordStore.MAX_OFFSET, CompactRecordStore.offsetOf(pathRef));
+
+		pathRef = CompactRecordStore.pathRef(0, 0, 0);
+		assertNotEquals(0L, pathRef, "a used slot must never look empty");
+		assertEquals(0, CompactRecordStore.hashOf(pathRef));
+		assertEquals(0, CompactRecordStore.pageOf(pathRef));
+		assertEquals(0, CompactRecordStore.offsetOf(pathRef));
+	}
+
+	@Test
+	void computeStoresAndReplacesRecords()
+	{
+		CompactRecordStore store = new CompactRecordStore();
+		FileRecord first = new FileRecord("/a/b.txt", 1L, "alice", true);
+		assertSame(first, store.compute(first.getFilePath(), existing ->
+		{
+			assertNull(existing);
+			return first;
+		}));
+		assertTrue(store.isSelected("/a/b.txt"));
+
+		FileRecord second = new FileRecord("/a/b.txt", 2L, "bob", false);
+		store.compute(second.getFilePath(), existing ->
+		{
+			assertEquals(1L, existing.getTimestamp());
+			assertEquals("alice", existing.getUsername());
+			assertTrue(existing.isSelected());
+			return second;
+		});
+		assertFalse(store.isSelected("/a/b.txt"));
+		assertFalse(store.isSelected("/a/c.txt"));
+
+		List<FileRecord> values = store.values();
+		assertEquals(1, values.size());
+		assertEquals("/a/b.txt", values.get(0).getFilePath());
+		assertEquals(2L, values.get(0).getTimestamp());
+		assertEquals("bob", values.get(0).getUsername());
+	}
+
+	@Test
+	void computeRejectsRemoval()
+	{
+		CompactRecordStore store = new CompactRecordStore();
+		assertThrows(IllegalArgumentException.class, () -> store.compute("/a", existing -> null));
+	}
+
+	@Test
+	void keepsNonAsciiAndOversizedPaths()
+	{
+		CompactRecordStore store = new CompactRecordStore();
+		String unicode = "/daten/übersicht/日本語.txt";
+		// Larger than the biggest page, so it gets a page of its own
+		String huge = "/" + "x".repeat(CompactRecordStore.MAX_OFFSET + 100);
+		store.compute(unicode, existing -> new FileRecord(unicode, 5L, null, true));
+		store.compute(huge, existing -> new FileRecord(huge, 6L, "carol", true));
+		store.compute("/after", existing -> new FileRecord("/after", 7L, "carol", false));
+
+		Map<String, FileRecord> byPath = byPath(store.values());
+		assertEquals(3, byPath.size());
+		assertNull(byPath.get(unicode).getUsername());
+		assertEquals(6L, byPath.get(huge).getTimestamp());
+		assertTrue(store.isSelected(unicode));
+		assertTrue(store.isSelected(huge));
+		assertFalse(store.isSelected("/after"));
+	}
+
+	@Test
+	void keepsAllRecordsAcrossResizesAndPages()
+	{
+		CompactRecordStore store = new CompactRecordStore();
+		int count = 100_000;
+		for (int i = 0; i < count; i++)
+		{
+			String path = "/data/folder-" + (i / 100) + "/file-" + i + ".pdf";
+			long timestamp = i;
+			store.compute(path, existing -> new FileRecord(path, timestamp, "user" + (timestamp % 3), timestamp % 2 == 0));
+		}
+		// Updating after the table has grown must find the existing records, not add new ones
+		for (int i = 0; i < count; i += 7)
+		{
+			String path = "/data/folder-" + (i / 100) + "/file-" + i + ".pdf";
+			store.compute(path, existing -> new FileRecord(path, existing.getTimestamp() + count, existing.getUsername(), true));
+		}
+
+		Map<String, FileRecord> byPath = byPath(store.values());
+		assertEquals(count, byPath.size());
+		int selected = 0;
+		for (int i = 0; i < count; i++)
+		{
+			FileRecord record = byPath.get("/data/folder-" + (i / 100) + "/file-" + i + ".pdf");
+			assertEquals(i % 7 == 0 ? i + count : i, record.getTimestamp());
+			assertEquals("user" + (i % 3), record.getUsername());
+			if (i % 2 == 0 || i % 7 == 0)
+			{
+				selected++;
+			}
+		}
+		assertEquals(selected, store.selectedPaths().size());
+	}
+
+	@Test
+	void clearReportsAndRemovesAllRecords()
+	{
+		CompactRecordStore store = new CompactRecordStore();
+		for (int i = 0; i < 1000; i++)
+		{
+			String path = "/clear/" + i;
+			store.compute(path, existing -> new FileRecord(path, 1L, "dave", true));
+		}
+
+		List<FileRecord> removed = new ArrayList<>();
+		store.clear(removed::add);
+		assertEquals(1000, removed.size());
+		assertTrue(store.values().isEmpty());
+		assertFalse(store.isSelected("/clear/1"));
+
+		// The store is usable again after clearing
+		store.compute("/clear/1", existing ->
+		{
+			assertNull(existing);
+			return new FileRecord("/clear/1", 2L, "dave", true);
+		});
+		assertEquals(List.of("/clear/1"), store.selectedPaths());
+	}
+
+	private static Map<String, FileRecord> byPath(List<FileRecord> records)
+	{
+		Map<String, FileRecord> byPath = new HashMap<>();
+		for (FileRecord record : records)
+		{
+			byPath.put(record.getFilePath(), record);
+		}
+		return byPath;
+	}
+}
\ No newline at end of file
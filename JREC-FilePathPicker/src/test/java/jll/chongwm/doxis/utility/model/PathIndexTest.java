@@ -0,0 +1,97 @@
+package jll.chongwm.doxis.utility.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+class PathIndexTest
+{
+	private static final boolean WINDOWS = File.separatorChar == '\\';
+
+	@Test
+	void completesNearestFirstThenAlphabetically()
+	{
+		PathIndex index = index(100, WINDOWS, "/r/b/x/y", "/r/b", "/r/a/z", "/r/c", "/r/a", "/r/b/x");
+		assertEquals(paths("/r/a", "/r/b", "/r/c", "/r/a/z", "/r/b/x", "/r/b/x/y"), index.complete(path("/r/"), 10));
+		assertEquals(paths("/r/a", "/r/b", "/r/c", "/r/a/z"), index.complete(path("/r/"), 4));
+		assertEquals(paths("/r/b/x", "/r/b/x/y"), index.complete(path("/r/b"), 10));
+	}
+
+	@Test
+	void keepsSiblingsThatSortAroundTheSeparatorAtTheirDepth()
+	{
+		// '-' sorts just before '/' and '0' just after it
+		PathIndex index = index(100, WINDOWS, "/a/b0", "/a/b/c", "/a/b-x", "/a/b");
+		assertEquals(paths("/a/b", "/a/b-x", "/a/b0", "/a/b/c"), index.complete(path("/a/"), 10));
+		assertEquals(paths("/a/b-x", "/a/b0", "/a/b/c"), index.complete(path("/a/b"), 10));
+	}
+
+	@Test
+	void dropsTheLeastRecentlySeenPathsBeyondMaxEntries()
+	{
+		PathIndex index = index(3, WINDOWS, "/r/a", "/r/b", "/r/c");
+		index.add(new File(path("/r/a")));
+		index.add(new File(path("/r/d")));
+		assertEquals(paths("/r/a", "/r/c", "/r/d"), index.complete(path("/r/"), 10));
+
+		index.add(new File(path("/r/e")));
+		assertEquals(paths("/r/a", "/r/d", "/r/e"), index.complete(path("/r/"), 10));
+	}
+
+	@Test
+	void matchesWindowsPathsIgnoringCaseAndSeparatorStyle()
+	{
+		PathIndex index = windowsIndex("C:\\Users\\Bob\\Documents", "C:\\Users\\Bob", "C:\\Users\\alice");
+		List<String> expected = Arrays.asList("C:\\Users\\alice", "C:\\Users\\Bob", "C:\\Users\\Bob\\Documents");
+		assertEquals(expected, index.complete("c:\\users\\", 10));
+		assertEquals(expected, index.complete("C:/USERS/", 10));
+		assertEquals(Arrays.asList("C:\\Users\\Bob\\Documents"), index.complete("c:/users/bob/", 10));
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void keepsCaseAndBackslashesOfOtherPaths()
+	{
+		PathIndex index = index(100, false, "/r/Dir", "/r/dir", "/r/a\\b");
+		assertEquals(Arrays.asList("/r/Dir"), index.complete("/r/D", 10));
+		assertEquals(Arrays.asList("/r/a\\b"), index.complete("/r/a", 10));
+	}
+
+	private static PathIndex index(int maxEntries, boolean windowsPaths, String... paths)
+	{
+		PathIndex index = new PathIndex(maxEntries, windowsPaths);
+		for (String path : paths)
+		{
+			index.add(new File(path(path)));
+		}
+		return index;
+	}
+
+	private static PathIndex windowsIndex(String... paths)
+	{
+		PathIndex index = new PathIndex(100, true);
+		for (String path : paths)
+		{
+			index.add(new File(path));
+		}
+		return index;
+	}
+
+	// Written with '/', in the form File gives back on this platform
+	private static String path(String path)
+	{
+		return path.replace('/', File.separatorChar);
+	}
+
+	private static List<String> paths(String... paths)
+	{
+		return Arrays.stream(paths).map(PathIndexTest::path).collect(Collectors.toList());
+	}
+}
\ No newline at end of file
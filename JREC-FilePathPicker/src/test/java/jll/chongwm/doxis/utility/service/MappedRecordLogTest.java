@@ -0,0 +1,218 @@
+package jll.chongwm.doxis.utility.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jll.chongwm.doxis.utility.model.FileRecord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedRecordLogTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysAppendedRecordsAfterReopen() throws IOException {
+        Path path = directory.resolve("log");
+        List<FileRecord> appended = List.of(
+                new FileRecord("/a/one.txt", 1L, "alice", true),
+                new FileRecord("/a/zwei-ü.txt", 2L, "bob", false),
+                new FileRecord("/a/one.txt", 3L, "alice", false));
+        try (MappedRecordLog log = new MappedRecordLog(path)) {
+            assertEquals(0, log.replay(record -> { }));
+            for (FileRecord record : appended) {
+                log.append(record);
+            }
+        }
+
+        try (MappedRecordLog log = new MappedRecordLog(path)) {
+            assertEquals(appended, replay(log));
+        }
+    }
+
+    @Test
+    void dropsCorruptLastEntryAndAppendsAfterTheIntactOnes() throws IOException {
+        Path path = directory.resolve("log");
+        FileRecord first = new FileRecord("/b/1", 1L, "carol", true);
+        FileRecord second = new FileRecord("/b/2", 2L, "carol", true);
+        int lastEntry;
+        try (MappedRecordLog log = new MappedRecordLog(path)) {
+            log.replay(record -> { });
+            log.append(first);
+            log.append(second);
+            lastEntry = log.size();
+            log.append(new FileRecord("/b/3", 3L, "carol", true));
+        }
+
+        // Flip a payload byte of the last entry, so its checksum no longer matches
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer oneByte = ByteBuffer.allocate(1);
+            channel.read(oneByte, lastEntry + 10);
+            oneByte.put(0, (byte) (oneByte.get(0) ^ 0xFF)).rewind();
+            channel.write(oneByte, lastEntry + 10);
+        }
+
+        FileRecord replacement = new FileRecord("/b/4", 4L, "carol", false);
+        try (MappedRecordLog log = new MappedRecordLog(path)) {
+            assertEquals(List.of(first, second), replay(log));
+            assertEquals(lastEntry, log.size());
+            log.append(replacement);
+        }
+        try (MappedRecordLog log = new MappedRecordLog(path)) {
+            assertEquals(List.of(first, second, replacement), replay(log));
+        }
+    }
+
+    @Test
+    void dropsTornLastEntry() throws IOException {
+        Path path = directory.resolve("log");
+        FileRecord first = new FileRecord("/c/1", 1L, "dave", true);
+        int end;
+        try (MappedRecordLog log = new MappedRecordLog(path)) {
+            log.replay(record -> { });
+            log.append(first);
+            end = log.size();
+        }
+
+        // A header whose payload never reached the file: a length, but a checksum and payload of zeros
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 40), end);
+        }
+
+        try (MappedRecordLog log = new MappedRecordLog(path)) {
+            assertEquals(List.of(first), replay(log));
+            assertEquals(end, log.size());
+        }
+    }
+
+    @Test
+    void keepsEntriesAppendedWhileRewriting() throws IOException {
+        Path path = directory.resolve("log");
+        FileRecord kept = new FileRecord("/d/kept", 2L, "erin", true);
+        FileRecord appendedDuringRewrite = new FileRecord("/d/new", 3L, "erin", true);
+        try (MappedRecordLog log = new MappedRecordLog(path)) {
+            log.replay(record -> { });
+            log.append(new FileRecord("/d/kept", 1L, "erin", false));
+            log.append(kept);
+
+            // The records are written without the log's monitor; appending while they are read is what a caller can do
+            log.rewrite(() -> new AbstractList<FileRecord>() {
+                @Override
+                public FileRecord get(int index) {
+                    try {
+                        log.append(appendedDuringRewrite);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return kept;
+                }
+
+                @Override
+                public int size() {
+                    return 1;
+                }
+            });
+            assertEquals(List.of(kept, appendedDuringRewrite), replay(log));
+        }
+
+        try (MappedRecordLog log = new MappedRecordLog(path)) {
+            assertEquals(List.of(kept, appendedDuringRewrite), replay(log));
+        }
+        assertFalse(Files.exists(directory.resolve("log.compact")));
+    }
+
+    @Test
+    void losesNoConcurrentAppendsAcrossRewrites() throws Exception {
+        Path path = directory.resolve("log");
+        int appends = 5000;
+        AtomicInteger appendedCount = new AtomicInteger();
+        List<FileRecord> live = new ArrayList<>();
+        try (MappedRecordLog log = new MappedRecordLog(path)) {
+            log.replay(record -> { });
+            Thread writer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < appends; i++) {
+                        FileRecord record = new FileRecord("/e/" + i, i, "frank", true);
+                        // Like the record stores: the live set and the log change together under the log's monitor
+                        synchronized (log) {
+                            log.append(record);
+                            live.add(record);
+                        }
+                        appendedCount.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.start();
+            while (writer.isAlive()) {
+                log.rewrite(() -> new ArrayList<>(live));
+            }
+            writer.join();
+        }
+
+        assertEquals(appends, appendedCount.get());
+        Set<String> paths = new HashSet<>();
+        try (MappedRecordLog log = new MappedRecordLog(path)) {
+            log.replay(record -> paths.add(record.getFilePath()));
+        }
+        for (int i = 0; i < appends; i++) {
+            assertTrue(paths.contains("/e/" + i), "lost /e/" + i);
+        }
+    }
+
+    @Test
+    void removesLeftoverCompactionFileOnOpen() throws IOException {
+        Path path = directory.resolve("log");
+        FileRecord record = new FileRecord("/f/1", 1L, "grace", true);
+        try (MappedRecordLog log = new MappedRecordLog(path)) {
+            log.replay(r -> { });
+            log.append(record);
+        }
+        Path leftover = directory.resolve("log.compact");
+        Files.write(leftover, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9 });
+
+        try (MappedRecordLog log = new MappedRecordLog(path)) {
+            assertFalse(Files.exists(leftover));
+            assertEquals(List.of(record), replay(log));
+        }
+    }
+
+    @Test
+    void refusesSecondOpenWhileLocked() throws IOException {
+        Path path = directory.resolve("log");
+        try (MappedRecordLog log = new MappedRecordLog(path)) {
+            log.replay(record -> { });
+            IOException e = assertThrows(IOException.class, () -> new MappedRecordLog(path));
+            assertTrue(e.getMessage().contains("in use"));
+        }
+
+        // Released on close
+        try (MappedRecordLog log = new MappedRecordLog(path)) {
+            assertEquals(0, log.replay(record -> { }));
+        }
+    }
+
+    private static List<FileRecord> replay(MappedRecordLog log) {
+        List<FileRecord> records = new ArrayList<>();
+        log.replay(records::add);
+        return records;
+    }
+}
\ No newline at end of file